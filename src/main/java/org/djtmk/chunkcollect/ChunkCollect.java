@@ -1,13 +1,20 @@
 package org.djtmk.chunkcollect;
 
+import org.bukkit.World;
+import org.bukkit.entity.Item;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.djtmk.chunkcollect.command.CommandHandler;
 import org.djtmk.chunkcollect.config.Config;
 import org.djtmk.chunkcollect.gui.CollectorGUI;
+import org.djtmk.chunkcollect.listener.ChunkListener;
 import org.djtmk.chunkcollect.listener.CollectorListener;
+import org.djtmk.chunkcollect.listener.ContainerListener;
 import org.djtmk.chunkcollect.listener.GUIListener;
+import org.djtmk.chunkcollect.listener.ItemListener;
 import org.djtmk.chunkcollect.manager.CollectorManager;
+import org.djtmk.chunkcollect.manager.ItemIndex;
 import org.djtmk.chunkcollect.task.CollectorTask;
+import org.djtmk.chunkcollect.task.PlatformScheduler;
 
 /**
  * Main plugin class for ChunkCollect+.
@@ -15,17 +22,34 @@ import org.djtmk.chunkcollect.task.CollectorTask;
 public final class ChunkCollect extends JavaPlugin {
     private Config config;
     private CollectorManager collectorManager;
+    private ItemIndex itemIndex;
     private CollectorGUI collectorGUI;
     private CollectorTask collectorTask;
+    private PlatformScheduler platformScheduler;
+    private PlatformScheduler.Task collectorTaskHandle;
 
     @Override
     public void onEnable() {
         // Initialize configuration
         config = new Config(this);
 
+        // Pick the Bukkit or Folia scheduler
+        platformScheduler = PlatformScheduler.create(this);
+
         // Initialize managers
         collectorManager = new CollectorManager(this, config);
 
+        // Index the item entities that already exist; Folia can't list entities across regions,
+        // so there items are indexed as their chunks' entities load
+        itemIndex = new ItemIndex();
+        if (!platformScheduler.isRegionized()) {
+            for (World world : getServer().getWorlds()) {
+                for (Item item : world.getEntitiesByClass(Item.class)) {
+                    itemIndex.track(item);
+                }
+            }
+        }
+
         // Initialize GUI
         collectorGUI = new CollectorGUI(this, config, collectorManager);
 
@@ -37,10 +61,13 @@ public final class ChunkCollect extends JavaPlugin {
         // Register listeners
         getServer().getPluginManager().registerEvents(new CollectorListener(this, collectorManager, config), this);
         getServer().getPluginManager().registerEvents(new GUIListener(this, collectorGUI), this);
+        getServer().getPluginManager().registerEvents(new ItemListener(itemIndex), this);
+        getServer().getPluginManager().registerEvents(new ChunkListener(collectorManager), this);
+        getServer().getPluginManager().registerEvents(new ContainerListener(collectorManager), this);
 
         // Start collector task
-        collectorTask = new CollectorTask(this, collectorManager, config);
-        collectorTask.runTaskTimer(this, 20L, 1L); // Run every tick, starting after 1 second
+        collectorTask = new CollectorTask(this, platformScheduler, collectorManager, itemIndex, config);
+        collectorTaskHandle = platformScheduler.runGlobalTimer(collectorTask, 20L, 1L); // Run every tick, starting after 1 second
 
         getLogger().info("ChunkCollect+ has been enabled!");
     }
@@ -48,16 +75,42 @@ public final class ChunkCollect extends JavaPlugin {
     @Override
     public void onDisable() {
         // Cancel tasks
-        if (collectorTask != null) {
-            collectorTask.cancel();
+        if (collectorTaskHandle != null) {
+            collectorTaskHandle.cancel();
         }
 
-        // Save collectors and close database
+        // Write the remaining changes and close database
         if (collectorManager != null) {
-            collectorManager.saveCollectors();
             collectorManager.closeDatabase();
         }
 
         getLogger().info("ChunkCollect+ has been disabled!");
     }
+
+    /**
+     * Gets the collector task.
+     *
+     * @return The collector task
+     */
+    public CollectorTask getCollectorTask() {
+        return collectorTask;
+    }
+
+    /**
+     * Gets the scheduler for the server platform.
+     *
+     * @return The platform scheduler
+     */
+    public PlatformScheduler getPlatformScheduler() {
+        return platformScheduler;
+    }
+
+    /**
+     * Gets the item index.
+     *
+     * @return The item index
+     */
+    public ItemIndex getItemIndex() {
+        return itemIndex;
+    }
 }
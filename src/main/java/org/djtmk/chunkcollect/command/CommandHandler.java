@@ -3,6 +3,7 @@ package org.djtmk.chunkcollect.command;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -15,6 +16,7 @@ import org.djtmk.chunkcollect.config.Config;
 import org.djtmk.chunkcollect.data.CollectorData;
 import org.djtmk.chunkcollect.gui.CollectorGUI;
 import org.djtmk.chunkcollect.manager.CollectorManager;
+import org.djtmk.chunkcollect.task.CollectorTask;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -71,6 +73,10 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
                 return handleTeleport(sender, args);
             case "give":
                 return handleGive(sender, args);
+            case "stats":
+                return handleStats(sender, args);
+            case "export":
+                return handleExport(sender, args);
             default:
                 sendHelp(sender);
                 return true;
@@ -103,6 +109,11 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
             return true;
         }
 
+        if (!collectorManager.isReady()) {
+            player.sendMessage(ChatColor.RED + "Collectors are still loading, please try again in a moment.");
+            return true;
+        }
+
         boolean created = collectorManager.createCollector(player, targetBlock);
         if (!created) {
             player.sendMessage(config.getMessage("max-collectors-reached"));
@@ -210,11 +221,10 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
         for (Map.Entry<String, CollectorData> entry : collectors.entrySet()) {
             String id = entry.getKey();
             CollectorData collector = entry.getValue();
-            Location loc = collector.getBlockLocation();
 
             sender.sendMessage(ChatColor.AQUA + id + ChatColor.GRAY + " - " + 
-                    ChatColor.WHITE + loc.getWorld().getName() + " " + 
-                    loc.getBlockX() + "," + loc.getBlockY() + "," + loc.getBlockZ());
+                    ChatColor.WHITE + collector.getWorldName() + " " + 
+                    collector.getBlockX() + "," + collector.getBlockY() + "," + collector.getBlockZ());
         }
 
         return true;
@@ -264,18 +274,29 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
         }
 
         String id = args[1];
-        Map<String, CollectorData> collectors = collectorManager.getAllCollectors();
+        CollectorData collector = collectorManager.getCollector(id);
 
-        if (!collectors.containsKey(id)) {
+        if (collector == null) {
             player.sendMessage(ChatColor.RED + "Collector not found: " + id);
             return true;
         }
 
-        CollectorData collector = collectors.get(id);
-        Location location = collector.getBlockLocation().clone().add(0.5, 1, 0.5);
+        World world = collector.getWorld();
+        if (world == null) {
+            player.sendMessage(ChatColor.RED + "The world of collector " + id + " is not loaded: " + collector.getWorldName());
+            return true;
+        }
+
+        Location location = new Location(world, collector.getBlockX() + 0.5, collector.getBlockY() + 1, collector.getBlockZ() + 0.5);
 
-        player.teleport(location);
-        player.sendMessage(ChatColor.GREEN + "Teleported to collector: " + id);
+        // Teleports must be asynchronous on Folia, where the target may belong to another region
+        player.teleportAsync(location).thenAccept(success -> {
+            if (success) {
+                player.sendMessage(ChatColor.GREEN + "Teleported to collector: " + id);
+            } else {
+                player.sendMessage(ChatColor.RED + "Failed to teleport to collector: " + id);
+            }
+        });
         return true;
     }
 
@@ -351,6 +372,71 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
         return true;
     }
 
+    /**
+     * Handles the stats command.
+     *
+     * @param sender The command sender
+     * @param args The command arguments
+     * @return true if the command was handled, false otherwise
+     */
+    private boolean handleStats(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("chunkcollect.admin")) {
+            sender.sendMessage(config.getMessage("no-permission"));
+            return true;
+        }
+
+        CollectorTask task = plugin.getCollectorTask();
+
+        sender.sendMessage(ChatColor.GREEN + "ChunkCollect+ Stats:");
+        sender.sendMessage(ChatColor.GRAY + "Collectors: " + ChatColor.WHITE + collectorManager.getSnapshot().size()
+                + ChatColor.GRAY + " (" + collectorManager.getActiveCollectorCount() + " active, "
+                + collectorManager.getDirtyCount() + " unsaved)");
+        if (!collectorManager.isReady()) {
+            sender.sendMessage(ChatColor.YELLOW + "Collectors are still loading from the database.");
+        }
+        int parked = collectorManager.getParkedCount();
+        if (parked > 0) {
+            sender.sendMessage(ChatColor.GRAY + "Waiting for their world to load: " + ChatColor.WHITE + parked);
+        }
+        sender.sendMessage(ChatColor.GRAY + "Tracked items: " + ChatColor.WHITE + plugin.getItemIndex().size());
+        sender.sendMessage(ChatColor.GRAY + "Over-budget ticks: " + ChatColor.WHITE + task.getOverBudgetTicks());
+        sender.sendMessage(ChatColor.GRAY + "Deferred collector runs: " + ChatColor.WHITE + task.getDeferredCollectors()
+                + ChatColor.GRAY + " (" + task.getBacklogSize() + " waiting)");
+        sender.sendMessage(ChatColor.GRAY + "Deferred items: " + ChatColor.WHITE + task.getDeferredItems());
+        sender.sendMessage(ChatColor.GRAY + "Pending items: " + ChatColor.WHITE + collectorManager.getPendingStore().getItemCount()
+                + ChatColor.GRAY + " (" + collectorManager.getPendingStore().getDirtyCount() + " unsaved)");
+        sender.sendMessage(ChatColor.GRAY + "Backed off collectors: " + ChatColor.WHITE + task.getBackedOffCount());
+        sender.sendMessage(ChatColor.GRAY + "Overflow: " + ChatColor.WHITE + task.getDroppedItems() + " dropped"
+                + ChatColor.GRAY + ", " + ChatColor.WHITE + task.getVoidedItems() + " voided");
+        return true;
+    }
+
+    /**
+     * Handles the export command, which rewrites every collector in the
+     * database. Changes are saved as they happen, so this is only needed to
+     * force a full copy.
+     *
+     * @param sender The command sender
+     * @param args The command arguments
+     * @return true if the command was handled, false otherwise
+     */
+    private boolean handleExport(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("chunkcollect.admin")) {
+            sender.sendMessage(config.getMessage("no-permission"));
+            return true;
+        }
+
+        sender.sendMessage(ChatColor.YELLOW + "Saving all collectors...");
+        collectorManager.exportCollectors().thenAccept(saved -> plugin.getPlatformScheduler().runGlobal(() -> {
+            if (saved) {
+                sender.sendMessage(ChatColor.GREEN + "All collectors saved to the database.");
+            } else {
+                sender.sendMessage(ChatColor.RED + "Failed to save collectors. See the console for details.");
+            }
+        }));
+        return true;
+    }
+
     /**
      * Sends help information to a command sender.
      *
@@ -366,6 +452,8 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
             sender.sendMessage(ChatColor.AQUA + "/cc list" + ChatColor.GRAY + " - List all collectors");
             sender.sendMessage(ChatColor.AQUA + "/cc reload" + ChatColor.GRAY + " - Reload plugin configuration");
             sender.sendMessage(ChatColor.AQUA + "/cc tp <id>" + ChatColor.GRAY + " - Teleport to a collector");
+            sender.sendMessage(ChatColor.AQUA + "/cc stats" + ChatColor.GRAY + " - Show collection statistics");
+            sender.sendMessage(ChatColor.AQUA + "/cc export" + ChatColor.GRAY + " - Save every collector to the database");
         }
 
         if (sender.hasPermission("chunkcollect.give")) {
@@ -379,7 +467,7 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
             List<String> completions = new ArrayList<>(Arrays.asList("create", "remove", "gui"));
 
             if (sender.hasPermission("chunkcollect.admin")) {
-                completions.addAll(Arrays.asList("list", "reload", "tp"));
+                completions.addAll(Arrays.asList("list", "reload", "tp", "stats", "export"));
             }
 
             if (sender.hasPermission("chunkcollect.give")) {
@@ -4,6 +4,7 @@ import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.djtmk.chunkcollect.ChunkCollect;
+import org.djtmk.chunkcollect.data.OverflowPolicy;
 
 /**
  * Handles the plugin configuration.
@@ -35,6 +36,15 @@ public class Config {
     private int maxManualLinkedChests;
     private boolean autoLinkOnPlacement;
 
+    // Collection settings
+    private double maxMillisPerTick;
+    private int maxPendingItems;
+    private OverflowPolicy overflowPolicy;
+    private boolean adaptiveIntervalEnabled;
+    private int adaptiveMaxInterval;
+    private double adaptiveTargetItems;
+    private double adaptiveSmoothing;
+
     // No longer needed as we're using SQLite only
 
     // Messages
@@ -49,6 +59,7 @@ public class Config {
     private String messageChestLinkingMode;
     private String messageChestLinkingCancelled;
     private String messageChestAlreadyLinked;
+    private String messageChestOtherWorld;
     private String messageCollectorGiven;
     private String messageCollectorReceived;
     private String messageCollectorNotAdded;
@@ -98,6 +109,24 @@ public class Config {
         maxManualLinkedChests = config.getInt("chest-linking.max-manual-linked-chests", 3);
         autoLinkOnPlacement = config.getBoolean("chest-linking.auto-link-on-placement", true);
 
+        // Load collection settings
+        maxMillisPerTick = config.getDouble("collection.max-millis-per-tick", 2.0);
+        maxPendingItems = config.getInt("collection.pending.max-items", 1728);
+
+        // Parse overflow policy
+        String overflowPolicyStr = config.getString("collection.pending.overflow-policy", "DROP");
+        try {
+            overflowPolicy = OverflowPolicy.valueOf(overflowPolicyStr.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Invalid collection.pending.overflow-policy in config: " + overflowPolicyStr + ". Using DROP as default.");
+            overflowPolicy = OverflowPolicy.DROP;
+        }
+
+        adaptiveIntervalEnabled = config.getBoolean("collection.adaptive-interval.enabled", false);
+        adaptiveMaxInterval = config.getInt("collection.adaptive-interval.max-interval", 100);
+        adaptiveTargetItems = config.getDouble("collection.adaptive-interval.target-items", 16.0);
+        adaptiveSmoothing = Math.min(Math.max(config.getDouble("collection.adaptive-interval.smoothing", 0.25), 0.01), 1.0);
+
         // Load database settings
         databaseType = config.getString("database.type", "SQLITE").toUpperCase();
         sqliteFile = config.getString("database.sqlite.file", "collectors.db");
@@ -120,6 +149,7 @@ public class Config {
         messageChestLinkingMode = config.getString("messages.chest-linking-mode", "&eClick a chest to link it to your collector.");
         messageChestLinkingCancelled = config.getString("messages.chest-linking-cancelled", "&cChest linking cancelled.");
         messageChestAlreadyLinked = config.getString("messages.chest-already-linked", "&cThis chest is already linked to a collector.");
+        messageChestOtherWorld = config.getString("messages.chest-other-world", "&cLinked chests must be in the same world as the collector.");
         messageCollectorGiven = config.getString("messages.collector-given", "&aGave %amount% collector(s) to %player%.");
         messageCollectorReceived = config.getString("messages.collector-received", "&aYou received %amount% collector(s).");
         messageCollectorNotAdded = config.getString("messages.collector-not-added", "&cCould not give %amount% collector(s) due to full inventory.");
@@ -198,6 +228,34 @@ public class Config {
         return autoLinkOnPlacement;
     }
 
+    public double getMaxMillisPerTick() {
+        return maxMillisPerTick;
+    }
+
+    public int getMaxPendingItems() {
+        return maxPendingItems;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public boolean isAdaptiveIntervalEnabled() {
+        return adaptiveIntervalEnabled;
+    }
+
+    public int getAdaptiveMaxInterval() {
+        return adaptiveMaxInterval;
+    }
+
+    public double getAdaptiveTargetItems() {
+        return adaptiveTargetItems;
+    }
+
+    public double getAdaptiveSmoothing() {
+        return adaptiveSmoothing;
+    }
+
     /**
      * Gets the underlying configuration.
      *
@@ -246,6 +304,9 @@ public class Config {
             case "chest-already-linked":
                 message = messageChestAlreadyLinked;
                 break;
+            case "chest-other-world":
+                message = messageChestOtherWorld;
+                break;
             case "collector-given":
                 message = messageCollectorGiven;
                 break;
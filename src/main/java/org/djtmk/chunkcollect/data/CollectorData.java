@@ -1,116 +1,333 @@
 package org.djtmk.chunkcollect.data;
 
+import org.bukkit.Bukkit;
 import org.bukkit.Chunk;
 import org.bukkit.Location;
-import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * Represents a chunk collector with its properties and settings.
+ * <p>
+ * Servers can hold a very large number of collectors, so the state is kept in
+ * primitives: the owner as the two halves of its UUID, the block and its linked
+ * chests as packed block keys, and the world as an index into the
+ * {@link WorldDictionary}. Nothing here keeps a world or chunk in memory.
+ * Linked chests are always in the collector's world.
+ * <p>
+ * Getters don't lock, so they are safe to call from any thread. Setters and
+ * {@link #copy()} lock the collector, so a copy never holds half of a change.
  */
 public class CollectorData {
-    private UUID owner;
-    private Location blockLocation;
-    private Chunk chunk;
-    private int speedLevel;
-    private int rangeLevel;
-    private List<Material> filterList;
-    private List<Location> linkedChests;
-    private int maxLinkedChests;
+    private static final long[] NO_CHESTS = new long[0];
+
+    private final String id;
+    // On Folia the collector is changed on region threads while the writer copies it, so every field is
+    // volatile, and changes and copies lock the collector so fields set together are copied together
+    private volatile long ownerMost;
+    private volatile long ownerLeast;
+    private volatile long position;
+    private volatile int world;
+    private volatile int speedLevel;
+    private volatile int rangeLevel;
+    private volatile MaterialFilter filter;
+    // Replaced, never modified, on every change, so readers can hold on to it
+    private volatile long[] linkedChests;
+    private volatile int maxLinkedChests;
+
+    // Told about every change to the stored state, so the collector is queued for saving
+    private volatile Consumer<CollectorData> changeListener;
 
     /**
      * Creates a new collector with default settings.
      *
+     * @param id The unique ID of this collector
      * @param owner The UUID of the player who owns this collector
-     * @param blockLocation The location of the collector block
-     * @param chunk The chunk this collector is responsible for
+     * @param blockLocation The location of the collector block, whose chunk
+     *                      this collector is responsible for
      */
-    public CollectorData(UUID owner, Location blockLocation, Chunk chunk) {
-        this.owner = owner;
-        this.blockLocation = blockLocation;
-        this.chunk = chunk;
+    public CollectorData(String id, UUID owner, Location blockLocation) {
+        this.id = id;
+        this.ownerMost = owner.getMostSignificantBits();
+        this.ownerLeast = owner.getLeastSignificantBits();
+        bindLocation(blockLocation);
         this.speedLevel = 0;
         this.rangeLevel = 0;
-        this.filterList = List.of();
-        this.linkedChests = new ArrayList<>();
+        this.filter = MaterialFilter.NONE;
+        this.linkedChests = NO_CHESTS;
         this.maxLinkedChests = 1; // Default to 1 linked chest
     }
 
+    private CollectorData(String id, long ownerMost, long ownerLeast, long position, int world) {
+        this.id = id;
+        this.ownerMost = ownerMost;
+        this.ownerLeast = ownerLeast;
+        this.position = position;
+        this.world = world;
+    }
+
+    /**
+     * Creates a copy of this collector, so its state can be written to
+     * storage off the main thread while the original keeps changing.
+     *
+     * @return The copy
+     */
+    public synchronized CollectorData copy() {
+        CollectorData copy = new CollectorData(id, ownerMost, ownerLeast, position, world);
+        copy.speedLevel = speedLevel;
+        copy.rangeLevel = rangeLevel;
+        copy.filter = filter;
+        copy.linkedChests = linkedChests;
+        copy.maxLinkedChests = maxLinkedChests;
+        return copy;
+    }
+
     // Getters and setters
-    public UUID getOwner() {
-        return owner;
+    public String getId() {
+        return id;
+    }
+
+    public synchronized UUID getOwner() {
+        return new UUID(ownerMost, ownerLeast);
     }
 
-    public void setOwner(UUID owner) {
-        this.owner = owner;
+    public synchronized void setOwner(UUID owner) {
+        this.ownerMost = owner.getMostSignificantBits();
+        this.ownerLeast = owner.getLeastSignificantBits();
+        changed();
     }
 
+    /**
+     * Gets the location of the collector block. A new location is created on
+     * every call, so hot paths should use the block coordinates instead.
+     *
+     * @return The block location, with no world if the world is unloaded
+     */
     public Location getBlockLocation() {
-        return blockLocation;
+        return new Location(getWorld(), getBlockX(), getBlockY(), getBlockZ());
+    }
+
+    public synchronized void setBlockLocation(Location blockLocation) {
+        bindLocation(blockLocation);
+        changed();
+    }
+
+    public int getBlockX() {
+        return Block.getBlockKeyX(position);
+    }
+
+    public int getBlockY() {
+        return Block.getBlockKeyY(position);
+    }
+
+    public int getBlockZ() {
+        return Block.getBlockKeyZ(position);
+    }
+
+    /**
+     * Gets the packed key of the collector block.
+     *
+     * @return The block key
+     */
+    public long getBlockKey() {
+        return position;
+    }
+
+    public UUID getWorldId() {
+        return WorldDictionary.getId(world);
+    }
+
+    public String getWorldName() {
+        return WorldDictionary.getName(world);
+    }
+
+    /**
+     * Gets the collector's world if it is loaded.
+     *
+     * @return The world, or null if it is not loaded
+     */
+    public World getWorld() {
+        return Bukkit.getWorld(getWorldId());
+    }
+
+    public int getChunkX() {
+        return getBlockX() >> 4;
+    }
+
+    public int getChunkZ() {
+        return getBlockZ() >> 4;
     }
 
-    public void setBlockLocation(Location blockLocation) {
-        this.blockLocation = blockLocation;
+    /**
+     * Gets the packed key of the chunk this collector is responsible for.
+     *
+     * @return The chunk key
+     */
+    public long getChunkKey() {
+        return Chunk.getChunkKey(getChunkX(), getChunkZ());
     }
 
-    public Chunk getChunk() {
-        return chunk;
+    /**
+     * Checks if the chunk this collector is responsible for is loaded,
+     * without loading it.
+     *
+     * @return true if the world and chunk are loaded, false otherwise
+     */
+    public boolean isChunkLoaded() {
+        World world = getWorld();
+        return world != null && world.isChunkLoaded(getChunkX(), getChunkZ());
     }
 
-    public void setChunk(Chunk chunk) {
-        this.chunk = chunk;
+    /**
+     * Gets the chunk this collector is responsible for if it is loaded.
+     *
+     * @return The chunk, or null if the world or chunk is not loaded
+     */
+    public Chunk getChunkIfLoaded() {
+        World world = getWorld();
+        if (world == null || !world.isChunkLoaded(getChunkX(), getChunkZ())) {
+            return null;
+        }
+        return world.getChunkAt(getChunkX(), getChunkZ());
     }
 
     public int getSpeedLevel() {
         return speedLevel;
     }
 
-    public void setSpeedLevel(int speedLevel) {
+    public synchronized void setSpeedLevel(int speedLevel) {
         this.speedLevel = speedLevel;
+        changed();
     }
 
     public int getRangeLevel() {
         return rangeLevel;
     }
 
-    public void setRangeLevel(int rangeLevel) {
+    public synchronized void setRangeLevel(int rangeLevel) {
         this.rangeLevel = rangeLevel;
+        changed();
     }
 
-    public List<Material> getFilterList() {
-        return filterList;
+    public MaterialFilter getFilter() {
+        return filter;
     }
 
-    public void setFilterList(List<Material> filterList) {
-        this.filterList = filterList;
+    public synchronized void setFilter(MaterialFilter filter) {
+        this.filter = filter;
+        changed();
     }
 
+    /**
+     * Gets the locations of the linked chests. A new list is created on every
+     * call, so hot paths should use {@link #getLinkedChestKeys()} instead.
+     *
+     * @return An unmodifiable list of chest locations
+     */
     public List<Location> getLinkedChests() {
+        long[] chests = linkedChests;
+        if (chests.length == 0) {
+            return Collections.emptyList();
+        }
+
+        World world = getWorld();
+        List<Location> locations = new ArrayList<>(chests.length);
+        for (long chest : chests) {
+            locations.add(new Location(world, Block.getBlockKeyX(chest), Block.getBlockKeyY(chest), Block.getBlockKeyZ(chest)));
+        }
+        return Collections.unmodifiableList(locations);
+    }
+
+    /**
+     * Gets the packed block keys of the linked chests. The array is shared
+     * and must not be modified.
+     *
+     * @return The chest block keys
+     */
+    public long[] getLinkedChestKeys() {
         return linkedChests;
     }
 
-    public void setLinkedChests(List<Location> linkedChests) {
-        this.linkedChests = linkedChests;
+    public int getLinkedChestCount() {
+        return linkedChests.length;
+    }
+
+    public synchronized void setLinkedChests(List<Location> linkedChests) {
+        long[] chests = new long[linkedChests.size()];
+        for (int i = 0; i < chests.length; i++) {
+            chests[i] = toBlockKey(linkedChests.get(i));
+        }
+        this.linkedChests = chests.length == 0 ? NO_CHESTS : chests;
+        changed();
     }
 
-    public void addLinkedChest(Location chestLocation) {
-        if (linkedChests.size() < maxLinkedChests) {
-            linkedChests.add(chestLocation);
+    public synchronized void addLinkedChest(Location chestLocation) {
+        if (linkedChests.length < maxLinkedChests) {
+            long[] chests = Arrays.copyOf(linkedChests, linkedChests.length + 1);
+            chests[linkedChests.length] = toBlockKey(chestLocation);
+            linkedChests = chests;
+            changed();
         }
     }
 
-    public boolean removeLinkedChest(Location chestLocation) {
-        return linkedChests.remove(chestLocation);
+    public synchronized boolean removeLinkedChest(Location chestLocation) {
+        long key = toBlockKey(chestLocation);
+        for (int i = 0; i < linkedChests.length; i++) {
+            if (linkedChests[i] != key) {
+                continue;
+            }
+
+            if (linkedChests.length == 1) {
+                linkedChests = NO_CHESTS;
+            } else {
+                long[] chests = new long[linkedChests.length - 1];
+                System.arraycopy(linkedChests, 0, chests, 0, i);
+                System.arraycopy(linkedChests, i + 1, chests, i, chests.length - i);
+                linkedChests = chests;
+            }
+            changed();
+            return true;
+        }
+        return false;
     }
 
     public int getMaxLinkedChests() {
         return maxLinkedChests;
     }
 
-    public void setMaxLinkedChests(int maxLinkedChests) {
+    public synchronized void setMaxLinkedChests(int maxLinkedChests) {
         this.maxLinkedChests = maxLinkedChests;
+        changed();
+    }
+
+    /**
+     * Sets the listener that is told about every change to the stored state.
+     *
+     * @param changeListener The listener, or null to stop tracking changes
+     */
+    public void setChangeListener(Consumer<CollectorData> changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    private void bindLocation(Location blockLocation) {
+        this.world = WorldDictionary.indexOf(blockLocation.getWorld());
+        this.position = toBlockKey(blockLocation);
+    }
+
+    private static long toBlockKey(Location location) {
+        return Block.getBlockKey(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    private void changed() {
+        if (changeListener != null) {
+            changeListener.accept(this);
+        }
     }
 }
@@ -0,0 +1,144 @@
+package org.djtmk.chunkcollect.data;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Tag;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A collector's item filter, compiled into a bitset over material ordinals.
+ * <p>
+ * Entries are material names or tag names prefixed with {@code #}, such as
+ * {@code #logs}, which expand to every material in the item or block tag.
+ * Filters are immutable; changing a filter compiles a new one, so checking an
+ * item is a single bit lookup.
+ */
+public final class MaterialFilter {
+    private static final int MATERIAL_COUNT = Material.values().length;
+
+    /**
+     * A filter that allows every item.
+     */
+    public static final MaterialFilter NONE = new MaterialFilter(Mode.ALLOW, List.of(), new long[0]);
+
+    private final Mode mode;
+    private final List<String> entries;
+    private final long[] bits;
+
+    private MaterialFilter(Mode mode, List<String> entries, long[] bits) {
+        this.mode = mode;
+        this.entries = entries;
+        this.bits = bits;
+    }
+
+    /**
+     * Compiles a filter. Entries that don't name a material or tag are kept,
+     * so they survive a save, but match nothing.
+     *
+     * @param mode The filter mode
+     * @param entries The material names and {@code #tag} names
+     * @return The compiled filter
+     */
+    public static MaterialFilter compile(Mode mode, Collection<String> entries) {
+        long[] bits = new long[(MATERIAL_COUNT + 63) >> 6];
+        for (String entry : entries) {
+            Set<Material> materials = resolve(entry);
+            if (materials == null) {
+                continue;
+            }
+            for (Material material : materials) {
+                bits[material.ordinal() >> 6] |= 1L << material.ordinal();
+            }
+        }
+
+        return new MaterialFilter(mode, List.copyOf(entries), bits);
+    }
+
+    /**
+     * Resolves a filter entry to the materials it matches.
+     *
+     * @param entry A material name or a {@code #tag} name
+     * @return The matching materials, or null if the entry names no material or tag
+     */
+    public static Set<Material> resolve(String entry) {
+        if (!entry.startsWith("#")) {
+            Material material = Material.matchMaterial(entry);
+            return material == null ? null : Collections.singleton(material);
+        }
+
+        NamespacedKey key = NamespacedKey.fromString(entry.substring(1).toLowerCase());
+        if (key == null) {
+            return null;
+        }
+
+        Tag<Material> tag = Bukkit.getTag(Tag.REGISTRY_ITEMS, key, Material.class);
+        if (tag == null) {
+            tag = Bukkit.getTag(Tag.REGISTRY_BLOCKS, key, Material.class);
+        }
+        return tag == null ? null : tag.getValues();
+    }
+
+    /**
+     * Checks if the filter lets a material through.
+     *
+     * @param material The material
+     * @return true if the material is allowed, false otherwise
+     */
+    public boolean allows(Material material) {
+        // An empty filter allows everything in either mode
+        if (entries.isEmpty()) {
+            return true;
+        }
+
+        int ordinal = material.ordinal();
+        boolean listed = (bits[ordinal >> 6] & (1L << ordinal)) != 0;
+        return listed == (mode == Mode.ALLOW);
+    }
+
+    /**
+     * Gets the filter mode.
+     *
+     * @return The filter mode
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Gets the entries the filter was compiled from.
+     *
+     * @return An unmodifiable list of material names and {@code #tag} names
+     */
+    public List<String> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Checks if the filter has no entries.
+     *
+     * @return true if the filter has no entries, false otherwise
+     */
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * How listed materials are treated.
+     */
+    public enum Mode {
+        /**
+         * Only listed materials are collected.
+         */
+        ALLOW,
+
+        /**
+         * Everything except listed materials is collected.
+         */
+        DENY
+    }
+}
@@ -0,0 +1,22 @@
+package org.djtmk.chunkcollect.data;
+
+/**
+ * What a collector does with items that don't fit into its pending buffer.
+ */
+public enum OverflowPolicy {
+    /**
+     * Drop the overflow at the collector and pause pickup until the buffer has room.
+     */
+    DROP,
+
+    /**
+     * Delete the overflow and keep collecting.
+     */
+    VOID,
+
+    /**
+     * Keep the last overflow and pause pickup, leaving items in the world, until the buffer has room.
+     * The buffer's limit is soft: it can exceed it by the items of the run that filled it.
+     */
+    STOP
+}
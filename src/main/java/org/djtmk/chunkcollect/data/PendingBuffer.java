@@ -0,0 +1,179 @@
+package org.djtmk.chunkcollect.data;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Items a collector picked up but could not store yet.
+ * <p>
+ * Similar items share one entry holding a single-item prototype and a count,
+ * so the buffer grows with the number of distinct item types rather than the
+ * number of picked up stacks.
+ */
+public class PendingBuffer {
+    // Version of the serialized format
+    private static final int FORMAT_VERSION = 1;
+
+    private final List<Entry> entries = new ArrayList<>();
+    private long total;
+
+    /**
+     * Adds items to the buffer without going over a capacity.
+     *
+     * @param stack The item, its own amount is ignored
+     * @param amount The amount to add
+     * @param capacity The maximum number of items the buffer may hold
+     * @return The amount that was added
+     */
+    public synchronized long add(ItemStack stack, long amount, long capacity) {
+        long accepted = Math.min(amount, Math.max(capacity - total, 0));
+        if (accepted <= 0) {
+            return 0;
+        }
+
+        total += accepted;
+        for (Entry entry : entries) {
+            if (entry.item.isSimilar(stack)) {
+                entry.amount += accepted;
+                return accepted;
+            }
+        }
+
+        entries.add(new Entry(stack.asOne(), accepted));
+        return accepted;
+    }
+
+    /**
+     * Gets the entries in the buffer.
+     *
+     * @return A copy of the entries
+     */
+    public synchronized List<Entry> getEntries() {
+        return List.copyOf(entries);
+    }
+
+    /**
+     * Removes every entry from the buffer and returns them.
+     *
+     * @return The removed entries
+     */
+    public synchronized List<Entry> takeAll() {
+        List<Entry> taken = List.copyOf(entries);
+        clear();
+        return taken;
+    }
+
+    /**
+     * Gets the total number of items in the buffer.
+     *
+     * @return The total number of items
+     */
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    /**
+     * Checks if the buffer is empty.
+     *
+     * @return true if the buffer is empty, false otherwise
+     */
+    public synchronized boolean isEmpty() {
+        return total == 0;
+    }
+
+    /**
+     * Removes every item from the buffer.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        total = 0;
+    }
+
+    /**
+     * Serializes the buffer. Each item type is stored once as
+     * {@link ItemStack#serializeAsBytes()} followed by its count.
+     *
+     * @return The serialized buffer
+     */
+    public synchronized byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(entries.size());
+            for (Entry entry : entries) {
+                byte[] item = entry.item.serializeAsBytes();
+                out.writeInt(item.length);
+                out.write(item);
+                out.writeLong(entry.amount);
+            }
+        } catch (IOException e) {
+            // Writing to memory doesn't fail
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserializes a buffer written by {@link #toBytes()}.
+     *
+     * @param data The serialized buffer
+     * @return The buffer
+     * @throws IOException if the data is malformed or of an unknown version
+     */
+    public static PendingBuffer fromBytes(byte[] data) throws IOException {
+        PendingBuffer buffer = new PendingBuffer();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int version = in.readUnsignedByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unknown pending items format version " + version);
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                byte[] item = new byte[in.readInt()];
+                in.readFully(item);
+                long amount = in.readLong();
+                buffer.add(ItemStack.deserializeBytes(item), amount, Long.MAX_VALUE);
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * All pending items of one type.
+     */
+    public static final class Entry {
+        private final ItemStack item;
+        private long amount;
+
+        private Entry(ItemStack item, long amount) {
+            this.item = item;
+            this.amount = amount;
+        }
+
+        /**
+         * Gets the item, with an amount of one.
+         *
+         * @return The item
+         */
+        public ItemStack getItem() {
+            return item;
+        }
+
+        /**
+         * Gets the number of pending items of this type.
+         *
+         * @return The amount
+         */
+        public long getAmount() {
+            return amount;
+        }
+    }
+}
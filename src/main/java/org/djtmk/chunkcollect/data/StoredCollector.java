@@ -0,0 +1,145 @@
+package org.djtmk.chunkcollect.data;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * A collector as it was read from storage, before its world is resolved.
+ * <p>
+ * Reading collectors needs no server state, so it can run off the main thread.
+ * A stored collector is turned into a {@link CollectorData} once its world is
+ * loaded, and until then it is kept as is so it is never lost.
+ */
+public final class StoredCollector {
+    private final String id;
+    private final String owner;
+    private final String worldName;
+    private final int x;
+    private final int y;
+    private final int z;
+    private final int speedLevel;
+    private final int rangeLevel;
+    private final int maxLinkedChests;
+    private final String filterMode;
+    private final List<String> filters;
+    private final List<ChestPosition> linkedChests;
+
+    /**
+     * Creates a stored collector.
+     *
+     * @param id The collector ID
+     * @param owner The UUID of the player who owns the collector, as stored
+     * @param worldName The name of the collector's world
+     * @param x The block X coordinate
+     * @param y The block Y coordinate
+     * @param z The block Z coordinate
+     * @param speedLevel The speed level
+     * @param rangeLevel The range level
+     * @param maxLinkedChests The maximum number of linked chests
+     * @param filterMode The name of the filter mode
+     * @param filters The material names and tag names of the filter
+     * @param linkedChests The positions of the linked chests
+     */
+    public StoredCollector(String id, String owner, String worldName, int x, int y, int z,
+                           int speedLevel, int rangeLevel, int maxLinkedChests,
+                           String filterMode, List<String> filters, List<ChestPosition> linkedChests) {
+        this.id = id;
+        this.owner = owner;
+        this.worldName = worldName;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.speedLevel = speedLevel;
+        this.rangeLevel = rangeLevel;
+        this.maxLinkedChests = maxLinkedChests;
+        this.filterMode = filterMode;
+        this.filters = filters;
+        this.linkedChests = linkedChests;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getWorldName() {
+        return worldName;
+    }
+
+    /**
+     * Creates the collector in its loaded world. Filter entries that name no
+     * material or tag are kept, with a warning, and match nothing. Linked chests outside the
+     * collector's world are left out with a warning; their rows stay stored.
+     *
+     * @param world The collector's world
+     * @param logger The logger to warn on
+     * @return The collector data
+     * @throws IllegalArgumentException if the stored owner is not a UUID
+     */
+    public CollectorData toCollector(World world, Logger logger) {
+        CollectorData collector = new CollectorData(id, UUID.fromString(owner), new Location(world, x, y, z));
+        collector.setSpeedLevel(speedLevel);
+        collector.setRangeLevel(rangeLevel);
+        collector.setMaxLinkedChests(maxLinkedChests);
+
+        MaterialFilter.Mode mode;
+        try {
+            mode = MaterialFilter.Mode.valueOf(filterMode);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            logger.warning("Invalid filter mode in database: " + filterMode);
+            mode = MaterialFilter.Mode.ALLOW;
+        }
+
+        for (String entry : filters) {
+            if (MaterialFilter.resolve(entry) == null) {
+                // Kept so a later version or a datapack tag can still resolve it
+                logger.warning("Filter entry of collector " + id + " names no material or tag, it matches nothing: " + entry);
+            }
+        }
+        collector.setFilter(MaterialFilter.compile(mode, filters));
+
+        List<Location> chests = new ArrayList<>(linkedChests.size());
+        for (ChestPosition chest : linkedChests) {
+            if (!chest.worldName.equals(worldName)) {
+                // Older versions accepted these links; the row stays in storage, it just isn't used
+                logger.warning("Ignoring linked chest of collector " + id + " at " + chest.worldName + " "
+                        + chest.x + ", " + chest.y + ", " + chest.z + ": linked chests must be in the collector's world "
+                        + worldName + ". The link is kept in the database; link a chest in " + worldName + " to replace it.");
+                continue;
+            }
+            chests.add(new Location(world, chest.x, chest.y, chest.z));
+        }
+        collector.setLinkedChests(chests);
+
+        return collector;
+    }
+
+    /**
+     * The stored position of a linked chest.
+     */
+    public static final class ChestPosition {
+        private final String worldName;
+        private final int x;
+        private final int y;
+        private final int z;
+
+        /**
+         * Creates a chest position.
+         *
+         * @param worldName The name of the chest's world
+         * @param x The block X coordinate
+         * @param y The block Y coordinate
+         * @param z The block Z coordinate
+         */
+        public ChestPosition(String worldName, int x, int y, int z) {
+            this.worldName = worldName;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.djtmk.chunkcollect.data;
+
+import org.bukkit.World;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Numbers the worlds collectors are placed in, so each collector stores its
+ * world as a small index instead of a reference.
+ * <p>
+ * Indexes are handed out once per world UUID and never reused. A server has
+ * only a handful of worlds, so lookups by index read a copy-on-write array and
+ * never lock.
+ */
+public final class WorldDictionary {
+    private static final Map<UUID, Integer> indexes = new HashMap<>();
+    private static volatile UUID[] ids = new UUID[0];
+    private static volatile String[] names = new String[0];
+
+    private WorldDictionary() {
+    }
+
+    /**
+     * Gets the index of a world, assigning one if the world is new.
+     *
+     * @param world The world
+     * @return The world index
+     */
+    public static synchronized int indexOf(World world) {
+        Integer index = indexes.get(world.getUID());
+        if (index != null) {
+            return index;
+        }
+
+        index = ids.length;
+        UUID[] grownIds = Arrays.copyOf(ids, index + 1);
+        String[] grownNames = Arrays.copyOf(names, index + 1);
+        grownIds[index] = world.getUID();
+        grownNames[index] = world.getName();
+        names = grownNames;
+        ids = grownIds;
+        indexes.put(world.getUID(), index);
+        return index;
+    }
+
+    /**
+     * Gets the UUID of a world.
+     *
+     * @param index The world index
+     * @return The world UUID
+     */
+    public static UUID getId(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Gets the name a world had when it was first indexed, which stays
+     * available while the world is unloaded.
+     *
+     * @param index The world index
+     * @return The world name
+     */
+    public static String getName(int index) {
+        return names[index];
+    }
+}
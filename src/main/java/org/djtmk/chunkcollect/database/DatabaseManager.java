@@ -1,14 +1,46 @@
 package org.djtmk.chunkcollect.database;
 
 import org.djtmk.chunkcollect.data.CollectorData;
+import org.djtmk.chunkcollect.data.StoredCollector;
 
+import java.sql.SQLException;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Interface for database operations.
+ * <p>
+ * Implementations may be called from the main thread and from the background
+ * threads that write collectors and pending items, so they must be thread safe.
  */
 public interface DatabaseManager {
     
+    /**
+     * Compares two collector IDs in the order the databases sort them when
+     * loading. Both sort IDs by their UTF-8 bytes, which is the order of their
+     * code points, while {@link String#compareTo(String)} compares UTF-16 units
+     * and disagrees on characters outside the basic plane.
+     * 
+     * @param first the first collector ID
+     * @param second the second collector ID
+     * @return a negative number, zero or a positive number if the first ID sorts
+     *         before, with or after the second
+     */
+    static int compareIds(String first, String second) {
+        int i = 0;
+        int j = 0;
+        while (i < first.length() && j < second.length()) {
+            int a = first.codePointAt(i);
+            int b = second.codePointAt(j);
+            if (a != b) {
+                return Integer.compare(a, b);
+            }
+            i += Character.charCount(a);
+            j += Character.charCount(b);
+        }
+        return Integer.compare(first.length() - i, second.length() - j);
+    }
+    
     /**
      * Initializes the database.
      * 
@@ -17,11 +49,12 @@ public interface DatabaseManager {
     boolean initialize();
     
     /**
-     * Loads all collectors from the database.
+     * Loads all collectors from the database, whether or not their worlds are
+     * loaded. This reads no server state, so it may run off the main thread.
      * 
-     * @return a map of collector IDs to collector data
+     * @return the stored collectors, or null if they could not be read
      */
-    Map<String, CollectorData> loadCollectors();
+    List<StoredCollector> loadCollectors();
     
     /**
      * Saves all collectors to the database.
@@ -40,6 +73,14 @@ public interface DatabaseManager {
      */
     boolean saveCollector(String id, CollectorData collector);
     
+    /**
+     * Saves the changed collectors in one batch, replacing their stored rows.
+     * 
+     * @param changes a map of collector IDs to collector data, where null deletes the collector
+     * @return true if saving was successful, false otherwise
+     */
+    boolean saveChanges(Map<String, CollectorData> changes);
+    
     /**
      * Deletes a collector from the database.
      * 
@@ -48,6 +89,24 @@ public interface DatabaseManager {
      */
     boolean deleteCollector(String id);
     
+    /**
+     * Loads the pending items of a collector.
+     * 
+     * @param collectorId the collector ID
+     * @return the serialized pending items, or null if the collector has none
+     * @throws SQLException if the pending items could not be read, so a failed
+     *         read is never mistaken for an empty buffer
+     */
+    byte[] loadPendingItems(String collectorId) throws SQLException;
+    
+    /**
+     * Saves the pending items of several collectors in one batch.
+     * 
+     * @param pendingItems a map of collector IDs to serialized pending items, where null deletes the entry
+     * @return true if saving was successful, false otherwise
+     */
+    boolean savePendingItems(Map<String, byte[]> pendingItems);
+    
     /**
      * Closes the database connection.
      */
@@ -1,25 +1,21 @@
 package org.djtmk.chunkcollect.database;
 
-import org.bukkit.Bukkit;
-import org.bukkit.Chunk;
-import org.bukkit.Location;
-import org.bukkit.Material;
-import org.bukkit.World;
+import org.bukkit.block.Block;
 import org.djtmk.chunkcollect.ChunkCollect;
 import org.djtmk.chunkcollect.data.CollectorData;
+import org.djtmk.chunkcollect.data.StoredCollector;
 
 import java.io.File;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 import java.util.logging.Level;
 
 /**
@@ -30,6 +26,9 @@ public class SQLiteManager implements DatabaseManager {
     private final String dbFile;
     private Connection connection;
 
+    // Rows fetched per round-trip while streaming the tables at startup
+    private static final int LOAD_FETCH_SIZE = 1000;
+
     /**
      * Creates a new SQLite database manager.
      *
@@ -41,7 +40,7 @@ public class SQLiteManager implements DatabaseManager {
     }
 
     @Override
-    public boolean initialize() {
+    public synchronized boolean initialize() {
         try {
             // Ensure the plugin data folder exists
             if (!plugin.getDataFolder().exists()) {
@@ -84,7 +83,8 @@ public class SQLiteManager implements DatabaseManager {
                             "chunk_z INTEGER NOT NULL, " +
                             "speed_level INTEGER NOT NULL, " +
                             "range_level INTEGER NOT NULL, " +
-                            "max_linked_chests INTEGER NOT NULL" +
+                            "max_linked_chests INTEGER NOT NULL, " +
+                            "filter_mode TEXT NOT NULL DEFAULT 'ALLOW'" +
                             ")"
             );
 
@@ -110,136 +110,120 @@ public class SQLiteManager implements DatabaseManager {
                             "FOREIGN KEY (collector_id) REFERENCES collectors(id) ON DELETE CASCADE" +
                             ")"
             );
-        }
-    }
-
-    @Override
-    public Map<String, CollectorData> loadCollectors() {
-        Map<String, CollectorData> collectors = new HashMap<>();
 
-        try {
-            // Load collectors
-            try (PreparedStatement statement = connection.prepareStatement(
-                    "SELECT * FROM collectors"
-            )) {
-                ResultSet resultSet = statement.executeQuery();
-
-                while (resultSet.next()) {
-                    String id = resultSet.getString("id");
-                    UUID owner = UUID.fromString(resultSet.getString("owner"));
-                    String worldName = resultSet.getString("world");
-                    int x = resultSet.getInt("x");
-                    int y = resultSet.getInt("y");
-                    int z = resultSet.getInt("z");
-                    int chunkX = resultSet.getInt("chunk_x");
-                    int chunkZ = resultSet.getInt("chunk_z");
-                    int speedLevel = resultSet.getInt("speed_level");
-                    int rangeLevel = resultSet.getInt("range_level");
-                    int maxLinkedChests = resultSet.getInt("max_linked_chests");
-
-                    // Get the world and chunk
-                    World world = Bukkit.getWorld(worldName);
-                    if (world == null) {
-                        plugin.getLogger().warning("Failed to load collector " + id + ": world " + worldName + " not found");
-                        continue;
-                    }
-
-                    Location blockLocation = new Location(world, x, y, z);
-                    Chunk chunk = world.getChunkAt(chunkX, chunkZ);
-
-                    // Create the collector data
-                    CollectorData collector = new CollectorData(owner, blockLocation, chunk);
-                    collector.setSpeedLevel(speedLevel);
-                    collector.setRangeLevel(rangeLevel);
-                    collector.setMaxLinkedChests(maxLinkedChests);
-
-                    // Load filters
-                    List<Material> filters = loadFilters(id);
-                    collector.setFilterList(filters);
-
-                    // Load linked chests
-                    List<Location> linkedChests = loadLinkedChests(id);
-                    collector.setLinkedChests(linkedChests);
-
-                    collectors.put(id, collector);
-                }
+            // Add the filter mode to collectors created before filters had modes
+            if (!hasColumn("collectors", "filter_mode")) {
+                statement.execute("ALTER TABLE collectors ADD COLUMN filter_mode TEXT NOT NULL DEFAULT 'ALLOW'");
             }
 
-            return collectors;
-        } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to load collectors from SQLite database", e);
-            return new HashMap<>();
+            // Create pending items table
+            statement.execute(
+                    "CREATE TABLE IF NOT EXISTS pending_items (" +
+                            "collector_id TEXT PRIMARY KEY, " +
+                            "data BLOB NOT NULL" +
+                            ")"
+            );
         }
     }
 
     /**
-     * Loads filters for a collector.
+     * Checks if a table has a column.
      *
-     * @param collectorId The collector ID
-     * @return A list of materials
+     * @param table The table name, without prefix
+     * @param column The column name
+     * @return true if the column exists, false otherwise
      * @throws SQLException if a database error occurs
      */
-    private List<Material> loadFilters(String collectorId) throws SQLException {
-        List<Material> filters = new ArrayList<>();
-
-        try (PreparedStatement statement = connection.prepareStatement(
-                "SELECT material FROM filters WHERE collector_id = ?"
-        )) {
-            statement.setString(1, collectorId);
-            ResultSet resultSet = statement.executeQuery();
-
-            while (resultSet.next()) {
-                String materialName = resultSet.getString("material");
-                try {
-                    Material material = Material.valueOf(materialName);
-                    filters.add(material);
-                } catch (IllegalArgumentException e) {
-                    plugin.getLogger().warning("Invalid material in database: " + materialName);
-                }
-            }
+    private boolean hasColumn(String table, String column) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet resultSet = metaData.getColumns(null, null, table, column)) {
+            return resultSet.next();
         }
-
-        return filters;
     }
 
-    /**
-     * Loads linked chests for a collector.
-     *
-     * @param collectorId The collector ID
-     * @return A list of locations
-     * @throws SQLException if a database error occurs
-     */
-    private List<Location> loadLinkedChests(String collectorId) throws SQLException {
-        List<Location> linkedChests = new ArrayList<>();
+    @Override
+    public synchronized List<StoredCollector> loadCollectors() {
+        if (connection == null) {
+            plugin.getLogger().severe("Failed to load collectors: the database is not connected");
+            return null;
+        }
 
-        try (PreparedStatement statement = connection.prepareStatement(
-                "SELECT world, x, y, z FROM linked_chests WHERE collector_id = ?"
-        )) {
-            statement.setString(1, collectorId);
-            ResultSet resultSet = statement.executeQuery();
+        List<StoredCollector> collectors = new ArrayList<>();
 
-            while (resultSet.next()) {
-                String worldName = resultSet.getString("world");
-                int x = resultSet.getInt("x");
-                int y = resultSet.getInt("y");
-                int z = resultSet.getInt("z");
+        // Stream each table once, ordered by collector ID, and merge the filter
+        // and linked chest rows into their collector as the collector rows pass.
+        // IDs are ordered by their bytes, so the merge can compare them the same way
+        try (Statement collectorStatement = connection.createStatement();
+             Statement filterStatement = connection.createStatement();
+             Statement chestStatement = connection.createStatement()) {
+            collectorStatement.setFetchSize(LOAD_FETCH_SIZE);
+            filterStatement.setFetchSize(LOAD_FETCH_SIZE);
+            chestStatement.setFetchSize(LOAD_FETCH_SIZE);
 
-                World world = Bukkit.getWorld(worldName);
-                if (world == null) {
-                    plugin.getLogger().warning("Failed to load linked chest: world " + worldName + " not found");
-                    continue;
+            ResultSet collectorRows = collectorStatement.executeQuery(
+                    "SELECT * FROM collectors ORDER BY id COLLATE BINARY"
+            );
+            ResultSet filterRows = filterStatement.executeQuery(
+                    "SELECT collector_id, material FROM filters ORDER BY collector_id COLLATE BINARY"
+            );
+            ResultSet chestRows = chestStatement.executeQuery(
+                    "SELECT collector_id, world, x, y, z FROM linked_chests ORDER BY collector_id COLLATE BINARY"
+            );
+            boolean hasFilterRow = filterRows.next();
+            boolean hasChestRow = chestRows.next();
+
+            while (collectorRows.next()) {
+                String id = collectorRows.getString("id");
+                String owner = collectorRows.getString("owner");
+                String worldName = collectorRows.getString("world");
+                int x = collectorRows.getInt("x");
+                int y = collectorRows.getInt("y");
+                int z = collectorRows.getInt("z");
+                int speedLevel = collectorRows.getInt("speed_level");
+                int rangeLevel = collectorRows.getInt("range_level");
+                int maxLinkedChests = collectorRows.getInt("max_linked_chests");
+                String filterModeName = collectorRows.getString("filter_mode");
+
+                // Take this collector's filters, skipping rows left behind by collectors that no longer exist
+                List<String> filters = new ArrayList<>();
+                while (hasFilterRow) {
+                    int order = DatabaseManager.compareIds(filterRows.getString("collector_id"), id);
+                    if (order > 0) {
+                        break;
+                    }
+                    if (order == 0) {
+                        filters.add(filterRows.getString("material"));
+                    }
+                    hasFilterRow = filterRows.next();
                 }
 
-                Location location = new Location(world, x, y, z);
-                linkedChests.add(location);
+                // Take this collector's linked chests the same way
+                List<StoredCollector.ChestPosition> linkedChests = new ArrayList<>();
+                while (hasChestRow) {
+                    int order = DatabaseManager.compareIds(chestRows.getString("collector_id"), id);
+                    if (order > 0) {
+                        break;
+                    }
+                    if (order == 0) {
+                        linkedChests.add(new StoredCollector.ChestPosition(chestRows.getString("world"),
+                                chestRows.getInt("x"), chestRows.getInt("y"), chestRows.getInt("z")));
+                    }
+                    hasChestRow = chestRows.next();
+                }
+
+                collectors.add(new StoredCollector(id, owner, worldName, x, y, z, speedLevel, rangeLevel,
+                        maxLinkedChests, filterModeName, filters, linkedChests));
             }
-        }
 
-        return linkedChests;
+            return collectors;
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to load collectors from SQLite database", e);
+            return null;
+        }
     }
 
     @Override
-    public boolean saveCollectors(Map<String, CollectorData> collectors) {
+    public synchronized boolean saveCollectors(Map<String, CollectorData> collectors) {
         try {
             // Begin transaction
             connection.setAutoCommit(false);
@@ -248,7 +232,6 @@ public class SQLiteManager implements DatabaseManager {
             try (Statement statement = connection.createStatement()) {
                 statement.execute("DELETE FROM collectors");
                 statement.execute("DELETE FROM filters");
-                statement.execute("DELETE FROM linked_chests");
             }
 
             // Save collectors
@@ -259,6 +242,11 @@ public class SQLiteManager implements DatabaseManager {
                 saveCollector(id, collector);
             }
 
+            // Linked chests in other worlds are kept by saveLinkedChests, so only those of removed collectors go
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DELETE FROM linked_chests WHERE collector_id NOT IN (SELECT id FROM collectors)");
+            }
+
             // Commit transaction
             connection.commit();
             connection.setAutoCommit(true);
@@ -280,34 +268,35 @@ public class SQLiteManager implements DatabaseManager {
     }
 
     @Override
-    public boolean saveCollector(String id, CollectorData collector) {
+    public synchronized boolean saveCollector(String id, CollectorData collector) {
         try {
             // Save collector
             try (PreparedStatement statement = connection.prepareStatement(
                     "INSERT OR REPLACE INTO collectors " +
-                            "(id, owner, world, x, y, z, chunk_x, chunk_z, speed_level, range_level, max_linked_chests) " +
-                            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"
+                            "(id, owner, world, x, y, z, chunk_x, chunk_z, speed_level, range_level, max_linked_chests, filter_mode) " +
+                            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"
             )) {
                 statement.setString(1, id);
                 statement.setString(2, collector.getOwner().toString());
-                statement.setString(3, collector.getBlockLocation().getWorld().getName());
-                statement.setInt(4, collector.getBlockLocation().getBlockX());
-                statement.setInt(5, collector.getBlockLocation().getBlockY());
-                statement.setInt(6, collector.getBlockLocation().getBlockZ());
-                statement.setInt(7, collector.getChunk().getX());
-                statement.setInt(8, collector.getChunk().getZ());
+                statement.setString(3, collector.getWorldName());
+                statement.setInt(4, collector.getBlockX());
+                statement.setInt(5, collector.getBlockY());
+                statement.setInt(6, collector.getBlockZ());
+                statement.setInt(7, collector.getChunkX());
+                statement.setInt(8, collector.getChunkZ());
                 statement.setInt(9, collector.getSpeedLevel());
                 statement.setInt(10, collector.getRangeLevel());
                 statement.setInt(11, collector.getMaxLinkedChests());
+                statement.setString(12, collector.getFilter().getMode().name());
 
                 statement.executeUpdate();
             }
 
             // Save filters
-            saveFilters(id, collector.getFilterList());
+            saveFilters(id, collector.getFilter().getEntries());
 
             // Save linked chests
-            saveLinkedChests(id, collector.getLinkedChests());
+            saveLinkedChests(id, collector);
 
             return true;
         } catch (SQLException e) {
@@ -320,10 +309,10 @@ public class SQLiteManager implements DatabaseManager {
      * Saves filters for a collector.
      *
      * @param collectorId The collector ID
-     * @param filters The list of materials
+     * @param filters The list of material names and tag names
      * @throws SQLException if a database error occurs
      */
-    private void saveFilters(String collectorId, List<Material> filters) throws SQLException {
+    private void saveFilters(String collectorId, List<String> filters) throws SQLException {
         // Delete existing filters
         try (PreparedStatement statement = connection.prepareStatement(
                 "DELETE FROM filters WHERE collector_id = ?"
@@ -337,9 +326,9 @@ public class SQLiteManager implements DatabaseManager {
             try (PreparedStatement statement = connection.prepareStatement(
                     "INSERT INTO filters (collector_id, material) VALUES (?, ?)"
             )) {
-                for (Material material : filters) {
+                for (String material : filters) {
                     statement.setString(1, collectorId);
-                    statement.setString(2, material.name());
+                    statement.setString(2, material);
                     statement.executeUpdate();
                 }
             }
@@ -350,29 +339,31 @@ public class SQLiteManager implements DatabaseManager {
      * Saves linked chests for a collector.
      *
      * @param collectorId The collector ID
-     * @param linkedChests The list of locations
+     * @param collector The collector data
      * @throws SQLException if a database error occurs
      */
-    private void saveLinkedChests(String collectorId, List<Location> linkedChests) throws SQLException {
-        // Delete existing linked chests
+    private void saveLinkedChests(String collectorId, CollectorData collector) throws SQLException {
+        // Delete existing linked chests in the collector's world. Older versions could link chests in
+        // other worlds; those aren't loaded, but their rows are kept so no stored link is lost
         try (PreparedStatement statement = connection.prepareStatement(
-                "DELETE FROM linked_chests WHERE collector_id = ?"
+                "DELETE FROM linked_chests WHERE collector_id = ? AND world = ?"
         )) {
             statement.setString(1, collectorId);
+            statement.setString(2, collector.getWorldName());
             statement.executeUpdate();
         }
 
         // Insert new linked chests
-        if (!linkedChests.isEmpty()) {
+        if (collector.getLinkedChestCount() > 0) {
             try (PreparedStatement statement = connection.prepareStatement(
                     "INSERT INTO linked_chests (collector_id, world, x, y, z) VALUES (?, ?, ?, ?, ?)"
             )) {
-                for (Location location : linkedChests) {
+                for (long chest : collector.getLinkedChestKeys()) {
                     statement.setString(1, collectorId);
-                    statement.setString(2, location.getWorld().getName());
-                    statement.setInt(3, location.getBlockX());
-                    statement.setInt(4, location.getBlockY());
-                    statement.setInt(5, location.getBlockZ());
+                    statement.setString(2, collector.getWorldName());
+                    statement.setInt(3, Block.getBlockKeyX(chest));
+                    statement.setInt(4, Block.getBlockKeyY(chest));
+                    statement.setInt(5, Block.getBlockKeyZ(chest));
                     statement.executeUpdate();
                 }
             }
@@ -380,7 +371,63 @@ public class SQLiteManager implements DatabaseManager {
     }
 
     @Override
-    public boolean deleteCollector(String id) {
+    public synchronized boolean saveChanges(Map<String, CollectorData> changes) {
+        try {
+            // Begin transaction
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement deleteFilters = connection.prepareStatement(
+                    "DELETE FROM filters WHERE collector_id = ?"
+            ); PreparedStatement deleteLinkedChests = connection.prepareStatement(
+                    "DELETE FROM linked_chests WHERE collector_id = ?"
+            ); PreparedStatement deleteCollector = connection.prepareStatement(
+                    "DELETE FROM collectors WHERE id = ?"
+            )) {
+                for (Map.Entry<String, CollectorData> entry : changes.entrySet()) {
+                    String id = entry.getKey();
+                    if (entry.getValue() != null) {
+                        if (!saveCollector(id, entry.getValue())) {
+                            throw new SQLException("Failed to save collector " + id);
+                        }
+                        continue;
+                    }
+
+                    // Removed collectors lose their rows in every table
+                    deleteFilters.setString(1, id);
+                    deleteFilters.addBatch();
+                    deleteLinkedChests.setString(1, id);
+                    deleteLinkedChests.addBatch();
+                    deleteCollector.setString(1, id);
+                    deleteCollector.addBatch();
+                }
+
+                deleteFilters.executeBatch();
+                deleteLinkedChests.executeBatch();
+                deleteCollector.executeBatch();
+            }
+
+            // Commit transaction
+            connection.commit();
+            connection.setAutoCommit(true);
+
+            return true;
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to save collector changes to SQLite database", e);
+
+            // Rollback transaction
+            try {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            } catch (SQLException ex) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to rollback transaction", ex);
+            }
+
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized boolean deleteCollector(String id) {
         try {
             try (PreparedStatement statement = connection.prepareStatement(
                     "DELETE FROM collectors WHERE id = ?"
@@ -396,7 +443,69 @@ public class SQLiteManager implements DatabaseManager {
     }
 
     @Override
-    public void close() {
+    public synchronized byte[] loadPendingItems(String collectorId) throws SQLException {
+        if (connection == null) {
+            throw new SQLException("The database is not connected");
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT data FROM pending_items WHERE collector_id = ?"
+        )) {
+            statement.setString(1, collectorId);
+            ResultSet resultSet = statement.executeQuery();
+
+            return resultSet.next() ? resultSet.getBytes("data") : null;
+        }
+    }
+
+    @Override
+    public synchronized boolean savePendingItems(Map<String, byte[]> pendingItems) {
+        try {
+            // Begin transaction
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement upsert = connection.prepareStatement(
+                    "INSERT OR REPLACE INTO pending_items (collector_id, data) VALUES (?, ?)"
+            ); PreparedStatement delete = connection.prepareStatement(
+                    "DELETE FROM pending_items WHERE collector_id = ?"
+            )) {
+                for (Map.Entry<String, byte[]> entry : pendingItems.entrySet()) {
+                    if (entry.getValue() == null) {
+                        delete.setString(1, entry.getKey());
+                        delete.addBatch();
+                    } else {
+                        upsert.setString(1, entry.getKey());
+                        upsert.setBytes(2, entry.getValue());
+                        upsert.addBatch();
+                    }
+                }
+
+                upsert.executeBatch();
+                delete.executeBatch();
+            }
+
+            // Commit transaction
+            connection.commit();
+            connection.setAutoCommit(true);
+
+            return true;
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to save pending items to SQLite database", e);
+
+            // Rollback transaction
+            try {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            } catch (SQLException ex) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to rollback transaction", ex);
+            }
+
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
         try {
             if (connection != null && !connection.isClosed()) {
                 connection.close();
@@ -12,6 +12,7 @@ import org.bukkit.inventory.meta.ItemMeta;
 import org.djtmk.chunkcollect.ChunkCollect;
 import org.djtmk.chunkcollect.config.Config;
 import org.djtmk.chunkcollect.data.CollectorData;
+import org.djtmk.chunkcollect.data.MaterialFilter;
 import org.djtmk.chunkcollect.manager.CollectorManager;
 
 import java.util.ArrayList;
@@ -72,8 +73,8 @@ public class CollectorGUI {
                         ChatColor.GRAY + "Location: " + formatLocation(collector.getBlockLocation()),
                         ChatColor.GRAY + "Speed Level: " + collector.getSpeedLevel(),
                         ChatColor.GRAY + "Range Level: " + collector.getRangeLevel(),
-                        ChatColor.GRAY + "Filters: " + (collector.getFilterList().isEmpty() ? "None" : collector.getFilterList().size() + " items"),
-                        ChatColor.GRAY + "Linked Chests: " + collector.getLinkedChests().size() + "/" + collector.getMaxLinkedChests()
+                        ChatColor.GRAY + "Filters: " + formatFilter(collector.getFilter()),
+                        ChatColor.GRAY + "Linked Chests: " + collector.getLinkedChestCount() + "/" + collector.getMaxLinkedChests()
                 )
         );
         inventory.setItem(4, statsItem);
@@ -111,7 +112,7 @@ public class CollectorGUI {
                 Material.HOPPER,
                 ChatColor.LIGHT_PURPLE + "Item Filters",
                 List.of(
-                        ChatColor.GRAY + "Current Filters: " + (collector.getFilterList().isEmpty() ? "None" : collector.getFilterList().size() + " items"),
+                        ChatColor.GRAY + "Current Filters: " + formatFilter(collector.getFilter()),
                         "",
                         ChatColor.YELLOW + "Click to configure filters!"
                 )
@@ -120,14 +121,14 @@ public class CollectorGUI {
 
         // Chest linking item
         List<String> chestLinkingLore = new ArrayList<>();
-        chestLinkingLore.add(ChatColor.GRAY + "Linked Chests: " + collector.getLinkedChests().size() + "/" + collector.getMaxLinkedChests());
+        chestLinkingLore.add(ChatColor.GRAY + "Linked Chests: " + collector.getLinkedChestCount() + "/" + collector.getMaxLinkedChests());
         chestLinkingLore.add("");
 
-        if (collector.getLinkedChests().size() < collector.getMaxLinkedChests()) {
+        if (collector.getLinkedChestCount() < collector.getMaxLinkedChests()) {
             chestLinkingLore.add(ChatColor.YELLOW + "Right-click to link a new chest");
         }
 
-        if (!collector.getLinkedChests().isEmpty()) {
+        if (collector.getLinkedChestCount() > 0) {
             chestLinkingLore.add(ChatColor.YELLOW + "Left-click to view linked chests");
         }
 
@@ -288,13 +289,26 @@ public class CollectorGUI {
             return;
         }
 
-        collector.setRangeLevel(currentLevel + 1);
+        collectorManager.setRangeLevel(collector, currentLevel + 1);
         player.sendMessage(ChatColor.GREEN + "Collector range upgraded to level " + (currentLevel + 1) + "!");
 
         // Refresh the GUI
         openGUI(player, collector);
     }
 
+    /**
+     * Formats a filter for display.
+     *
+     * @param filter The filter
+     * @return The formatted filter
+     */
+    private String formatFilter(MaterialFilter filter) {
+        if (filter.isEmpty()) {
+            return "None";
+        }
+        return filter.getEntries().size() + " entries (" + (filter.getMode() == MaterialFilter.Mode.ALLOW ? "allow" : "deny") + ")";
+    }
+
     /**
      * Opens the filter GUI for a player.
      *
@@ -314,30 +328,16 @@ public class CollectorGUI {
      */
     private void startChestLinking(Player player, CollectorData collector) {
         // Check if the collector has reached the maximum number of linked chests
-        if (collector.getLinkedChests().size() >= collector.getMaxLinkedChests()) {
+        if (collector.getLinkedChestCount() >= collector.getMaxLinkedChests()) {
             player.sendMessage(config.getMessage("max-linked-chests-reached"));
             return;
         }
 
-        // Get the collector ID
-        String collectorId = null;
-        for (Map.Entry<String, CollectorData> entry : collectorManager.getAllCollectors().entrySet()) {
-            if (entry.getValue() == collector) {
-                collectorId = entry.getKey();
-                break;
-            }
-        }
-
-        if (collectorId == null) {
-            player.sendMessage(ChatColor.RED + "Failed to get collector ID.");
-            return;
-        }
-
         // Close the GUI
         player.closeInventory();
 
         // Put the player in chest linking mode
-        collectorManager.startChestLinking(player, collectorId);
+        collectorManager.startChestLinking(player, collector);
 
         // Send a message to the player
         player.sendMessage(config.getMessage("chest-linking-mode"));
@@ -351,7 +351,7 @@ public class CollectorGUI {
      */
     private void openLinkedChestsGUI(Player player, CollectorData collector) {
         // Check if the collector has any linked chests
-        if (collector.getLinkedChests().isEmpty()) {
+        if (collector.getLinkedChestCount() == 0) {
             player.sendMessage(ChatColor.RED + "This collector has no linked chests.");
             return;
         }
@@ -0,0 +1,66 @@
+package org.djtmk.chunkcollect.listener;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.djtmk.chunkcollect.manager.CollectorManager;
+
+/**
+ * Keeps the set of active collectors in sync with loaded chunks.
+ */
+public class ChunkListener implements Listener {
+    private final CollectorManager collectorManager;
+
+    /**
+     * Creates a new chunk listener.
+     *
+     * @param collectorManager The collector manager
+     */
+    public ChunkListener(CollectorManager collectorManager) {
+        this.collectorManager = collectorManager;
+    }
+
+    /**
+     * Activates collectors in loaded chunks.
+     *
+     * @param event The chunk load event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        collectorManager.activateChunk(event.getChunk());
+    }
+
+    /**
+     * Deactivates collectors in unloaded chunks.
+     *
+     * @param event The chunk unload event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        collectorManager.deactivateChunk(event.getChunk());
+    }
+
+    /**
+     * Registers the stored collectors that were waiting for a world to load.
+     *
+     * @param event The world load event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        collectorManager.activateWorld(event.getWorld());
+    }
+
+    /**
+     * Deactivates collectors in unloaded worlds.
+     *
+     * @param event The world unload event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        collectorManager.deactivateWorld(event.getWorld());
+    }
+}
@@ -1,5 +1,6 @@
 package org.djtmk.chunkcollect.listener;
 
+import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
@@ -56,6 +57,13 @@ public class CollectorListener implements Listener {
             return;
         }
 
+        // Collectors can't be placed until the stored ones are loaded
+        if (!collectorManager.isReady()) {
+            player.sendMessage(ChatColor.RED + "Collectors are still loading, please try again in a moment.");
+            event.setCancelled(true);
+            return;
+        }
+
         // Try to create a collector
         boolean created = collectorManager.createCollector(player, block);
         if (!created) {
@@ -77,6 +85,13 @@ public class CollectorListener implements Listener {
         Block block = event.getBlock();
         Player player = event.getPlayer();
 
+        // Until the stored collectors are loaded, a collector block can't be told apart, so keep it from being broken
+        if (!collectorManager.isReady() && collectorManager.hasCollectorData(block)) {
+            player.sendMessage(ChatColor.RED + "Collectors are still loading, please try again in a moment.");
+            event.setCancelled(true);
+            return;
+        }
+
         // Check if the block is a collector
         if (!collectorManager.isCollector(block)) {
             return;
@@ -123,7 +138,7 @@ public class CollectorListener implements Listener {
                 }
 
                 // Get the collector
-                org.djtmk.chunkcollect.data.CollectorData collector = collectorManager.getAllCollectors().get(collectorId);
+                org.djtmk.chunkcollect.data.CollectorData collector = collectorManager.getCollector(collectorId);
                 if (collector == null) {
                     // Collector not found, cancel linking mode
                     collectorManager.stopChestLinking(player);
@@ -139,6 +154,13 @@ public class CollectorListener implements Listener {
                     return;
                 }
 
+                // Linked chests are stored as positions in the collector's world
+                if (!block.getWorld().getUID().equals(collector.getWorldId())) {
+                    player.sendMessage(config.getMessage("chest-other-world"));
+                    event.setCancelled(true);
+                    return;
+                }
+
                 // Link the chest to the collector
                 boolean linked = collectorManager.linkChest(collector, block);
 
@@ -0,0 +1,203 @@
+package org.djtmk.chunkcollect.listener;
+
+import org.bukkit.Chunk;
+import org.bukkit.block.Block;
+import org.bukkit.block.Container;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryMoveItemEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.djtmk.chunkcollect.manager.CollectorManager;
+import org.djtmk.chunkcollect.manager.ContainerCache;
+import org.djtmk.chunkcollect.manager.ContainerIndex;
+
+import java.util.List;
+
+/**
+ * Keeps the container index, cached collector containers and chest links in sync with containers
+ * in the world, and tells the cache when a container may have gained free space.
+ */
+public class ContainerListener implements Listener {
+    private final CollectorManager collectorManager;
+    private final ContainerIndex containerIndex;
+    private final ContainerCache containerCache;
+
+    /**
+     * Creates a new container listener.
+     *
+     * @param collectorManager The collector manager
+     */
+    public ContainerListener(CollectorManager collectorManager) {
+        this.collectorManager = collectorManager;
+        this.containerIndex = collectorManager.getContainerIndex();
+        this.containerCache = collectorManager.getContainerCache();
+    }
+
+    /**
+     * Handles containers being broken.
+     *
+     * @param event The block break event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        removeIfContainer(event.getBlock());
+        collectorManager.unlinkDestroyedChests(List.of(event.getBlock()));
+    }
+
+    /**
+     * Handles containers burning away.
+     *
+     * @param event The block burn event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent event) {
+        removeIfContainer(event.getBlock());
+        collectorManager.unlinkDestroyedChests(List.of(event.getBlock()));
+    }
+
+    /**
+     * Handles containers being placed.
+     *
+     * @param event The block place event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        Block block = event.getBlock();
+        if (block.getState(false) instanceof Container) {
+            containerIndex.add(block);
+            containerCache.invalidateAround(block);
+        }
+    }
+
+    /**
+     * Handles blocks being pushed by pistons.
+     *
+     * @param event The piston extend event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        invalidateIfContainer(event.getBlocks());
+        collectorManager.unlinkDestroyedChests(event.getBlocks());
+    }
+
+    /**
+     * Handles blocks being pulled by pistons.
+     *
+     * @param event The piston retract event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        invalidateIfContainer(event.getBlocks());
+        collectorManager.unlinkDestroyedChests(event.getBlocks());
+    }
+
+    /**
+     * Handles containers destroyed by exploding entities.
+     *
+     * @param event The entity explode event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        for (Block block : event.blockList()) {
+            removeIfContainer(block);
+        }
+        collectorManager.unlinkDestroyedChests(event.blockList());
+    }
+
+    /**
+     * Handles containers destroyed by exploding blocks.
+     *
+     * @param event The block explode event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        for (Block block : event.blockList()) {
+            removeIfContainer(block);
+        }
+        collectorManager.unlinkDestroyedChests(event.blockList());
+    }
+
+    /**
+     * Signals possible free space when a player closes a container.
+     *
+     * @param event The inventory close event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryClose(InventoryCloseEvent event) {
+        containerCache.signalSpace(event.getInventory());
+    }
+
+    /**
+     * Signals possible free space when a player clicks in a container.
+     *
+     * @param event The inventory click event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryClick(InventoryClickEvent event) {
+        containerCache.signalSpace(event.getView().getTopInventory());
+    }
+
+    /**
+     * Signals possible free space when a hopper or dropper takes items out of
+     * a container, and outdates the capacity of the container it puts them in.
+     *
+     * @param event The inventory move item event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryMoveItem(InventoryMoveItemEvent event) {
+        containerCache.signalSpace(event.getSource());
+        containerCache.invalidateCapacity(event.getDestination());
+    }
+
+    /**
+     * Drops indexed and cached containers in unloaded chunks.
+     *
+     * @param event The chunk unload event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        Chunk chunk = event.getChunk();
+        containerIndex.unloadChunk(chunk);
+        containerCache.invalidateChunk(chunk.getWorld(), chunk.getX(), chunk.getZ());
+    }
+
+    /**
+     * Drops indexed containers in unloaded worlds.
+     *
+     * @param event The world unload event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        containerIndex.unloadWorld(event.getWorld());
+    }
+
+    private void invalidateIfContainer(List<Block> blocks) {
+        for (Block block : blocks) {
+            invalidateIfContainer(block);
+        }
+    }
+
+    private void removeIfContainer(Block block) {
+        if (block.getState(false) instanceof Container) {
+            containerIndex.remove(block);
+            containerCache.invalidateAround(block);
+        }
+    }
+
+    private void invalidateIfContainer(Block block) {
+        if (block.getState(false) instanceof Container) {
+            containerCache.invalidateAround(block);
+        }
+    }
+}
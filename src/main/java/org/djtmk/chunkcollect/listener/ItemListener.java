@@ -0,0 +1,169 @@
+package org.djtmk.chunkcollect.listener;
+
+import com.destroystokyo.paper.event.entity.EntityRemoveFromWorldEvent;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Item;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockDropItemEvent;
+import org.bukkit.event.entity.EntityDropItemEvent;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.ItemDespawnEvent;
+import org.bukkit.event.entity.ItemMergeEvent;
+import org.bukkit.event.entity.ItemSpawnEvent;
+import org.bukkit.event.inventory.InventoryPickupItemEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.event.world.EntitiesUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.djtmk.chunkcollect.manager.ItemIndex;
+
+/**
+ * Keeps the item index in sync with dropped item entities.
+ */
+public class ItemListener implements Listener {
+    private final ItemIndex itemIndex;
+
+    /**
+     * Creates a new item listener.
+     *
+     * @param itemIndex The item index
+     */
+    public ItemListener(ItemIndex itemIndex) {
+        this.itemIndex = itemIndex;
+    }
+
+    /**
+     * Tracks items spawned in the world.
+     *
+     * @param event The item spawn event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemSpawn(ItemSpawnEvent event) {
+        itemIndex.track(event.getEntity());
+    }
+
+    /**
+     * Tracks items dropped by entities.
+     *
+     * @param event The entity drop item event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityDropItem(EntityDropItemEvent event) {
+        itemIndex.track(event.getItemDrop());
+    }
+
+    /**
+     * Tracks items dropped by broken blocks.
+     *
+     * @param event The block drop item event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockDropItem(BlockDropItemEvent event) {
+        for (Item item : event.getItems()) {
+            itemIndex.track(item);
+        }
+    }
+
+    /**
+     * Tracks items dropped by players.
+     *
+     * @param event The player drop item event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerDropItem(PlayerDropItemEvent event) {
+        itemIndex.track(event.getItemDrop());
+    }
+
+    /**
+     * Tracks items in chunks whose entities were loaded.
+     *
+     * @param event The entities load event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        for (Entity entity : event.getEntities()) {
+            if (entity instanceof Item) {
+                itemIndex.track((Item) entity);
+            }
+        }
+    }
+
+    /**
+     * Stops tracking items picked up by entities.
+     *
+     * @param event The entity pickup item event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityPickupItem(EntityPickupItemEvent event) {
+        itemIndex.untrack(event.getItem());
+    }
+
+    /**
+     * Stops tracking items picked up by hoppers.
+     *
+     * @param event The inventory pickup item event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryPickupItem(InventoryPickupItemEvent event) {
+        itemIndex.untrack(event.getItem());
+    }
+
+    /**
+     * Stops tracking items merged into another item.
+     *
+     * @param event The item merge event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemMerge(ItemMergeEvent event) {
+        // The merged entity is removed, the target keeps existing
+        itemIndex.untrack(event.getEntity());
+    }
+
+    /**
+     * Stops tracking despawned items.
+     *
+     * @param event The item despawn event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemDespawn(ItemDespawnEvent event) {
+        itemIndex.untrack(event.getEntity());
+    }
+
+    /**
+     * Stops tracking items removed from the world for any other reason.
+     *
+     * @param event The entity remove from world event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityRemoveFromWorld(EntityRemoveFromWorldEvent event) {
+        if (event.getEntity() instanceof Item) {
+            itemIndex.untrack((Item) event.getEntity());
+        }
+    }
+
+    /**
+     * Stops tracking items in chunks whose entities were unloaded.
+     *
+     * @param event The entities unload event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesUnload(EntitiesUnloadEvent event) {
+        for (Entity entity : event.getEntities()) {
+            if (entity instanceof Item) {
+                itemIndex.untrack((Item) entity);
+            }
+        }
+    }
+
+    /**
+     * Stops tracking items in unloaded worlds.
+     *
+     * @param event The world unload event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        itemIndex.clearWorld(event.getWorld());
+    }
+}
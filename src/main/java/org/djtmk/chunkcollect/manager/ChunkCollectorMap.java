@@ -0,0 +1,213 @@
+package org.djtmk.chunkcollect.manager;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Maps packed chunk keys of a single world to the IDs of the collectors
+ * placed in each chunk.
+ * <p>
+ * Keys are stored in a primitive {@code long} array with open addressing and
+ * linear probing, so a lookup neither boxes the key nor allocates. Most
+ * chunks hold a single collector, so each slot holds a small array of IDs
+ * whose length is the collector count.
+ */
+public class ChunkCollectorMap {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private String[][] values = new String[INITIAL_CAPACITY][];
+    private int size;
+
+    /**
+     * Adds a collector to a chunk.
+     *
+     * @param chunkKey The packed chunk key
+     * @param collectorId The collector ID
+     */
+    public void add(long chunkKey, String collectorId) {
+        int slot = find(chunkKey);
+        if (slot >= 0) {
+            String[] ids = values[slot];
+            for (String id : ids) {
+                if (id.equals(collectorId)) {
+                    return;
+                }
+            }
+            ids = Arrays.copyOf(ids, ids.length + 1);
+            ids[ids.length - 1] = collectorId;
+            values[slot] = ids;
+            return;
+        }
+
+        // Keep the table at most half full so probe runs stay short
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+            slot = find(chunkKey);
+        }
+
+        slot = -slot - 1;
+        keys[slot] = chunkKey;
+        values[slot] = new String[]{collectorId};
+        size++;
+    }
+
+    /**
+     * Removes a collector from a chunk.
+     *
+     * @param chunkKey The packed chunk key
+     * @param collectorId The collector ID
+     * @return true if the collector was in the chunk, false otherwise
+     */
+    public boolean remove(long chunkKey, String collectorId) {
+        int slot = find(chunkKey);
+        if (slot < 0) {
+            return false;
+        }
+
+        String[] ids = values[slot];
+        for (int i = 0; i < ids.length; i++) {
+            if (!ids[i].equals(collectorId)) {
+                continue;
+            }
+
+            if (ids.length == 1) {
+                delete(slot);
+            } else {
+                String[] remaining = new String[ids.length - 1];
+                System.arraycopy(ids, 0, remaining, 0, i);
+                System.arraycopy(ids, i + 1, remaining, i, ids.length - i - 1);
+                values[slot] = remaining;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of collectors in a chunk.
+     *
+     * @param chunkKey The packed chunk key
+     * @return The number of collectors
+     */
+    public int count(long chunkKey) {
+        int slot = find(chunkKey);
+        return slot < 0 ? 0 : values[slot].length;
+    }
+
+    /**
+     * Gets the collectors in a chunk.
+     *
+     * @param chunkKey The packed chunk key
+     * @return An unmodifiable list of collector IDs, empty if none
+     */
+    public List<String> get(long chunkKey) {
+        int slot = find(chunkKey);
+        return slot < 0 ? Collections.emptyList() : List.of(values[slot]);
+    }
+
+    /**
+     * Adds the collectors of every chunk to a collection.
+     *
+     * @param out The collection to add the collector IDs to
+     */
+    public void collectAll(Collection<String> out) {
+        for (String[] ids : values) {
+            if (ids != null) {
+                Collections.addAll(out, ids);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of chunks that hold collectors.
+     *
+     * @return The number of chunks
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the slot of a key.
+     *
+     * @param chunkKey The packed chunk key
+     * @return The slot, or {@code -(insertion slot) - 1} if the key is absent
+     */
+    private int find(long chunkKey) {
+        int mask = keys.length - 1;
+        int slot = hash(chunkKey) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == chunkKey) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -slot - 1;
+    }
+
+    /**
+     * Empties a slot and shifts back the entries probed past it, so lookups
+     * never need tombstones.
+     *
+     * @param slot The slot
+     */
+    private void delete(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (slot + 1) & mask;
+
+        while (values[next] != null) {
+            int home = hash(keys[next]) & mask;
+            // Move the entry into the hole unless its home slot lies between the hole and the entry
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+
+        values[hole] = null;
+        size--;
+    }
+
+    /**
+     * Rehashes every entry into a table of a new capacity.
+     *
+     * @param capacity The new capacity, a power of two
+     */
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        String[][] oldValues = values;
+        keys = new long[capacity];
+        values = new String[capacity][];
+
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == null) {
+                continue;
+            }
+            int slot = hash(oldKeys[i]) & mask;
+            while (values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Spreads the bits of a chunk key, whose low and high halves are the
+     * chunk X and Z coordinates.
+     *
+     * @param chunkKey The packed chunk key
+     * @return The hash
+     */
+    static int hash(long chunkKey) {
+        long hash = chunkKey * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
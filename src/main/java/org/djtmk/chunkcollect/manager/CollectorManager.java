@@ -7,24 +7,42 @@ import org.bukkit.NamespacedKey;
 import org.bukkit.World;
 import org.bukkit.ChatColor;
 import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
 import org.bukkit.block.BlockState;
 import org.bukkit.block.Chest;
 import org.bukkit.block.Container;
 import org.bukkit.block.TileState;
+import org.bukkit.block.data.BlockData;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
 import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 import org.djtmk.chunkcollect.ChunkCollect;
 import org.djtmk.chunkcollect.config.Config;
 import org.djtmk.chunkcollect.data.CollectorData;
+import org.djtmk.chunkcollect.data.PendingBuffer;
+import org.djtmk.chunkcollect.data.StoredCollector;
 import org.djtmk.chunkcollect.database.DatabaseManager;
 import org.djtmk.chunkcollect.database.SQLiteManager;
 import org.djtmk.chunkcollect.database.MySQLManager;
+import org.djtmk.chunkcollect.task.CollectionScheduler;
+import org.djtmk.chunkcollect.task.PlatformScheduler;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 
 /**
  * Manages all collectors in the server.
@@ -36,9 +54,50 @@ public class CollectorManager {
     private final NamespacedKey collectorKey;
     private final NamespacedKey linkedChestKey;
     private final DatabaseManager databaseManager;
+    private final CollectionScheduler scheduler;
+    private final ContainerIndex containerIndex;
+    private final ContainerCache containerCache;
+    private final CoverageIndex coverageIndex;
+    private final PendingStore pendingStore;
+
+    // Immutable view of the registry, republished on the first read after the set of collectors changed
+    private volatile CollectorSnapshot snapshot;
+
+    // Collector IDs by collector block and by linked chest, so block checks don't read block states
+    private final PositionIndex collectorBlocks = new PositionIndex();
+    private final PositionIndex linkedChestBlocks = new PositionIndex();
+
+    // Collector IDs by world and chunk key, used to enforce the per-chunk limit and to activate collectors when their chunk loads
+    private final Map<UUID, ChunkCollectorMap> collectorsByChunk = new HashMap<>();
+
+    // Stored collectors whose world isn't loaded yet, by world name; they are registered when the world loads
+    private final Map<String, List<StoredCollector>> parkedCollectors = new HashMap<>();
+
+    // Whether the collectors have been loaded from storage
+    private volatile boolean ready;
+
+    // Whether stored collectors were left out of the registry because they could not be read,
+    // in which case stored rows are never replaced wholesale
+    private volatile boolean incompleteLoad;
 
     // Map to track players in chest linking mode
-    private final Map<UUID, String> playersLinkingChests = new HashMap<>();
+    private final Map<UUID, String> playersLinkingChests = new ConcurrentHashMap<>();
+
+    // How often changed collectors are written, in ticks
+    private static final long SAVE_INTERVAL = 40L;
+
+    // IDs of collectors created, changed or removed since the last write
+    private final Set<String> dirtyCollectors = ConcurrentHashMap.newKeySet();
+    private final Consumer<CollectorData> changeListener = this::collectorChanged;
+    private PlatformScheduler.Task saveTask;
+
+    // Does all database work in the background, one batch at a time and in the order it was queued,
+    // so the connection is only ever used by this thread while the server runs
+    private final ExecutorService databaseWriter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ChunkCollect Database");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
      * Creates a new collector manager.
@@ -51,6 +110,10 @@ public class CollectorManager {
         this.config = config;
         this.collectorKey = new NamespacedKey(plugin, "collector_id");
         this.linkedChestKey = new NamespacedKey(plugin, "linked_collector_id");
+        this.scheduler = new CollectionScheduler(config);
+        this.containerIndex = new ContainerIndex();
+        this.containerCache = new ContainerCache(config, containerIndex);
+        this.coverageIndex = new CoverageIndex();
 
         // Initialize database manager based on configuration
         String dbType = config.getDatabaseType();
@@ -66,42 +129,271 @@ public class CollectorManager {
             plugin.getLogger().severe("Failed to initialize database. Collectors will not be saved or loaded.");
         }
 
+        this.pendingStore = new PendingStore(plugin, databaseManager, databaseWriter);
+        this.pendingStore.start();
+
         loadCollectors();
+
+        this.saveTask = plugin.getPlatformScheduler().runGlobalTimer(this::flushChanges, SAVE_INTERVAL, SAVE_INTERVAL);
     }
 
     /**
-     * Loads all collectors from storage.
+     * Loads all collectors from storage in the background. Until the load
+     * finishes, {@link #isReady()} returns false and no collectors can be
+     * created. Collectors in worlds that aren't loaded yet are kept aside and
+     * registered when their world loads.
      */
     public void loadCollectors() {
-        collectors.clear();
+        ready = false;
+        incompleteLoad = false;
+        synchronized (this) {
+            collectors.clear();
+            collectorsByChunk.clear();
+            parkedCollectors.clear();
+        }
+        collectorBlocks.clear();
+        linkedChestBlocks.clear();
+        scheduler.clear();
+        coverageIndex.clear();
+        containerIndex.clear();
+        containerCache.clear();
+        dirtyCollectors.clear();
+        invalidateSnapshot();
+
+        // Read on the database thread, so the load runs before any write queued after it
+        long start = System.currentTimeMillis();
+        CompletableFuture.supplyAsync(databaseManager::loadCollectors, databaseWriter)
+                .thenAccept(stored -> {
+                    if (stored == null) {
+                        failLoad();
+                    } else if (plugin.isEnabled()) {
+                        plugin.getPlatformScheduler().runGlobal(() -> registerLoaded(stored, start));
+                    }
+                })
+                .exceptionally(e -> {
+                    plugin.getLogger().log(Level.SEVERE, "Failed to load collectors from database", e);
+                    failLoad();
+                    return null;
+                });
+    }
 
-        // Load collectors from database
-        Map<String, CollectorData> loadedCollectors = databaseManager.loadCollectors();
-        if (loadedCollectors != null && !loadedCollectors.isEmpty()) {
-            collectors.putAll(loadedCollectors);
-            plugin.getLogger().info("Loaded " + collectors.size() + " collectors from database.");
-        } else {
+    /**
+     * Marks the manager as ready after the stored collectors could not be
+     * read, so players can still use the plugin. The stored rows are kept, and
+     * are loaded again on the next reload.
+     */
+    private void failLoad() {
+        incompleteLoad = true;
+        ready = true;
+        plugin.getLogger().severe("No stored collectors were loaded. New collectors work, but stored ones are kept untouched until they load.");
+    }
+
+    /**
+     * Registers the collectors read from storage, parking those whose world
+     * isn't loaded, and marks the manager as ready.
+     *
+     * @param stored The stored collectors
+     * @param start When the load started, in milliseconds
+     */
+    private void registerLoaded(List<StoredCollector> stored, long start) {
+        int loaded = 0;
+        try {
+            synchronized (this) {
+                for (StoredCollector storedCollector : stored) {
+                    World world = plugin.getServer().getWorld(storedCollector.getWorldName());
+                    if (world == null) {
+                        parkedCollectors.computeIfAbsent(storedCollector.getWorldName(), k -> new ArrayList<>()).add(storedCollector);
+                    } else if (registerStored(storedCollector, world)) {
+                        loaded++;
+                    }
+                }
+            }
+        } finally {
+            // Never leave the plugin waiting for a load that will not finish
+            invalidateSnapshot();
+            ready = true;
+        }
+
+        if (stored.isEmpty()) {
             plugin.getLogger().info("No collectors found in database.");
+        } else {
+            plugin.getLogger().info("Loaded " + loaded + " collectors from database in "
+                    + (System.currentTimeMillis() - start) + " ms.");
+        }
+        for (Map.Entry<String, List<StoredCollector>> entry : getParkedWorlds().entrySet()) {
+            plugin.getLogger().info("Waiting for world " + entry.getKey() + " to load " + entry.getValue().size() + " collectors.");
         }
     }
 
     /**
-     * Saves all collectors to storage.
+     * Registers the collectors that were waiting for a world to load.
+     *
+     * @param world The world that loaded
      */
-    public void saveCollectors() {
-        // Save collectors to database
-        if (databaseManager.saveCollectors(collectors)) {
-            plugin.getLogger().info("Saved " + collectors.size() + " collectors to database.");
-        } else {
-            plugin.getLogger().warning("Failed to save collectors to database.");
+    public void activateWorld(World world) {
+        List<StoredCollector> parked;
+        int skipped = 0;
+        synchronized (this) {
+            parked = parkedCollectors.remove(world.getName());
+            if (parked == null) {
+                return;
+            }
+            for (StoredCollector storedCollector : parked) {
+                if (!registerStored(storedCollector, world)) {
+                    skipped++;
+                }
+            }
+        }
+        invalidateSnapshot();
+        plugin.getLogger().info("Loaded " + (parked.size() - skipped) + " collectors in world " + world.getName() + ".");
+    }
+
+    /**
+     * Registers a stored collector in its loaded world. Nothing is marked as
+     * changed, since the collector matches what is stored. A collector whose
+     * row can't be read is skipped with a warning and left in storage.
+     *
+     * @param storedCollector The stored collector
+     * @param world The collector's world
+     * @return true if the collector was registered, false if it was skipped
+     */
+    private boolean registerStored(StoredCollector storedCollector, World world) {
+        CollectorData collector;
+        try {
+            collector = storedCollector.toCollector(world, plugin.getLogger());
+        } catch (RuntimeException e) {
+            incompleteLoad = true;
+            plugin.getLogger().log(Level.WARNING, "Skipping collector " + storedCollector.getId() + " that could not be loaded", e);
+            return false;
         }
+
+        collectors.put(collector.getId(), collector);
+        indexCollector(collector.getId(), collector);
+        return true;
     }
 
     /**
-     * Closes the database connection.
-     * This should be called when the plugin is disabled.
+     * Checks if the collectors have been loaded from storage.
+     *
+     * @return true if loading finished, false otherwise
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Gets the number of collectors waiting for their world to load.
+     *
+     * @return The number of parked collectors
+     */
+    public synchronized int getParkedCount() {
+        int count = 0;
+        for (List<StoredCollector> parked : parkedCollectors.values()) {
+            count += parked.size();
+        }
+        return count;
+    }
+
+    private synchronized Map<String, List<StoredCollector>> getParkedWorlds() {
+        return new HashMap<>(parkedCollectors);
+    }
+
+    /**
+     * Marks a collector as changed, so it is written with the next batch. A
+     * collector that is no longer registered is deleted from storage.
+     *
+     * @param collectorId The collector ID
+     */
+    public void markDirty(String collectorId) {
+        dirtyCollectors.add(collectorId);
+    }
+
+    /**
+     * Hands the collectors changed since the last write to the background
+     * writer. Only their rows are replaced or deleted. Changes made within
+     * one save interval are coalesced into a single write per collector.
+     */
+    public void flushChanges() {
+        if (dirtyCollectors.isEmpty()) {
+            return;
+        }
+
+        // Copy on this thread, so later changes don't race with the write
+        Map<String, CollectorData> changes = new HashMap<>();
+        for (Iterator<String> iterator = dirtyCollectors.iterator(); iterator.hasNext(); ) {
+            String collectorId = iterator.next();
+            iterator.remove();
+
+            CollectorData collector = collectors.get(collectorId);
+            changes.put(collectorId, collector == null ? null : collector.copy());
+        }
+
+        databaseWriter.execute(() -> {
+            if (!databaseManager.saveChanges(changes)) {
+                // Retry with the state at the next write
+                dirtyCollectors.addAll(changes.keySet());
+            }
+        });
+    }
+
+    /**
+     * Gets the number of collector changes waiting to be written.
+     *
+     * @return The number of dirty collectors
+     */
+    public int getDirtyCount() {
+        return dirtyCollectors.size();
+    }
+
+    /**
+     * Rewrites every collector in storage in the background. Changes are
+     * normally written in batches as they happen, so this is only needed for
+     * an explicit export.
+     *
+     * @return A future that completes with whether the save succeeded
+     */
+    public CompletableFuture<Boolean> exportCollectors() {
+        Map<String, CollectorData> copies = new HashMap<>();
+        for (CollectorData collector : collectors.values()) {
+            copies.put(collector.getId(), collector.copy());
+        }
+
+        // A full save replaces every stored row, so while collectors wait for their world or could not be read
+        // only the loaded ones are rewritten
+        boolean keepParked = getParkedCount() > 0 || incompleteLoad;
+
+        return CompletableFuture.supplyAsync(() -> {
+            boolean saved = keepParked ? databaseManager.saveChanges(copies) : databaseManager.saveCollectors(copies);
+            if (saved) {
+                plugin.getLogger().info("Saved " + copies.size() + " collectors to database.");
+            } else {
+                plugin.getLogger().warning("Failed to save collectors to database.");
+            }
+            return saved;
+        }, databaseWriter);
+    }
+
+    /**
+     * Writes the remaining collectors and pending items and closes the
+     * database connection. This should be called when the plugin is disabled.
      */
     public void closeDatabase() {
+        if (saveTask != null) {
+            saveTask.cancel();
+        }
+
+        flushChanges();
+        pendingStore.stop();
+        databaseWriter.shutdown();
+        try {
+            if (!databaseWriter.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out saving collectors and pending items to the database.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        pendingStore.close();
         databaseManager.close();
         plugin.getLogger().info("Database connection closed.");
     }
@@ -114,23 +406,24 @@ public class CollectorManager {
      * @return true if the collector was created, false otherwise
      */
     public boolean createCollector(Player player, Block block) {
+        if (!ready) {
+            return false;
+        }
+
         Chunk chunk = block.getChunk();
-        String chunkKey = getChunkKey(chunk);
 
-        // Check if there's already a collector in this chunk
-        if (hasCollectorInChunk(chunk) && !player.hasPermission("chunkcollect.bypass.limit")) {
+        // Check if the chunk already holds as many collectors as allowed
+        if (getCollectorCountInChunk(chunk) >= config.getMaxCollectorsPerChunk() && !player.hasPermission("chunkcollect.bypass.limit")) {
             return false;
         }
 
         // Create a new collector
         String collectorId = UUID.randomUUID().toString();
-        CollectorData collector = new CollectorData(player.getUniqueId(), block.getLocation(), chunk);
+        CollectorData collector = new CollectorData(collectorId, player.getUniqueId(), block.getLocation());
 
         // Set the maximum number of linked chests based on configuration
         collector.setMaxLinkedChests(config.getMaxManualLinkedChests());
 
-        collectors.put(collectorId, collector);
-
         // Mark the block as a collector
         BlockState state = block.getState();
         if (!(state instanceof TileState)) {
@@ -138,6 +431,10 @@ public class CollectorManager {
             return false;
         }
 
+        collectors.put(collectorId, collector);
+        indexCollector(collectorId, collector);
+        invalidateSnapshot();
+
         TileState tileState = (TileState) state;
         PersistentDataContainer blockData = tileState.getPersistentDataContainer();
         blockData.set(collectorKey, PersistentDataType.STRING, collectorId);
@@ -151,8 +448,8 @@ public class CollectorManager {
             }
         }
 
-        // Save the collectors
-        saveCollectors();
+        // Queue the new collector, including any auto-linked chests, for the next write
+        markDirty(collectorId);
 
         return true;
     }
@@ -164,35 +461,58 @@ public class CollectorManager {
      * @return true if the collector was removed, false if no collector was found
      */
     public boolean removeCollector(Block block) {
-        BlockState state = block.getState();
-        if (!(state instanceof TileState)) {
-            return false;
-        }
-
-        TileState tileState = (TileState) state;
-        PersistentDataContainer blockData = tileState.getPersistentDataContainer();
-        if (!blockData.has(collectorKey, PersistentDataType.STRING)) {
+        String collectorId = getCollectorId(block);
+        if (collectorId == null) {
             return false;
         }
 
-        String collectorId = blockData.get(collectorKey, PersistentDataType.STRING);
-        if (collectorId == null || !collectors.containsKey(collectorId)) {
+        // Remove the collector
+        CollectorData collector = collectors.remove(collectorId);
+        if (collector == null) {
             return false;
         }
-
-        // Remove the collector
-        collectors.remove(collectorId);
+        unindexCollector(collectorId, collector);
+        invalidateSnapshot();
+        containerCache.remove(collectorId);
+
+        // Items the collector held are dropped where it stood, as the DROP overflow policy does
+        World world = block.getWorld();
+        Location dropLocation = block.getLocation().add(0.5, 0.5, 0.5);
+        int chunkX = block.getX() >> 4;
+        int chunkZ = block.getZ() >> 4;
+        pendingStore.remove(collectorId, entries -> plugin.getPlatformScheduler().runAtChunk(world, chunkX, chunkZ, 0L,
+                () -> dropPendingItems(dropLocation, entries)));
 
         // Remove the block data
-        blockData.remove(collectorKey);
-        tileState.update();
+        BlockState state = block.getState();
+        if (state instanceof TileState) {
+            TileState tileState = (TileState) state;
+            tileState.getPersistentDataContainer().remove(collectorKey);
+            tileState.update();
+        }
 
-        // Save the collectors
-        saveCollectors();
+        // Queue the deletion for the next write
+        markDirty(collectorId);
 
         return true;
     }
 
+    /**
+     * Drops the pending items of a removed collector in stacks.
+     *
+     * @param location The location to drop the items at
+     * @param entries The pending items
+     */
+    private void dropPendingItems(Location location, List<PendingBuffer.Entry> entries) {
+        for (PendingBuffer.Entry entry : entries) {
+            ItemStack item = entry.getItem();
+            int maxStackSize = Math.max(item.getMaxStackSize(), 1);
+            for (long remaining = entry.getAmount(); remaining > 0; remaining -= maxStackSize) {
+                location.getWorld().dropItemNaturally(location, item.asQuantity((int) Math.min(remaining, maxStackSize)));
+            }
+        }
+    }
+
     /**
      * Checks if a block is a collector.
      *
@@ -200,14 +520,33 @@ public class CollectorManager {
      * @return true if the block is a collector, false otherwise
      */
     public boolean isCollector(Block block) {
+        return getCollectorId(block) != null;
+    }
+
+    /**
+     * Checks if a block carries a collector's block data. Unlike
+     * {@link #isCollector(Block)} this works before the stored collectors are
+     * loaded, but it reads the block's state.
+     *
+     * @param block The block to check
+     * @return true if the block was made a collector, false otherwise
+     */
+    public boolean hasCollectorData(Block block) {
         BlockState state = block.getState();
-        if (!(state instanceof TileState)) {
-            return false;
-        }
+        return state instanceof TileState
+                && ((TileState) state).getPersistentDataContainer().has(collectorKey, PersistentDataType.STRING);
+    }
 
-        TileState tileState = (TileState) state;
-        PersistentDataContainer blockData = tileState.getPersistentDataContainer();
-        return blockData.has(collectorKey, PersistentDataType.STRING);
+    /**
+     * Gets the ID of the collector at the specified location. The block type
+     * isn't checked, so collectors placed before the configured collector
+     * block changed are still found.
+     *
+     * @param block The block to check
+     * @return The collector ID, or null if the block is not a collector
+     */
+    public String getCollectorId(Block block) {
+        return collectorBlocks.get(block);
     }
 
     /**
@@ -217,19 +556,181 @@ public class CollectorManager {
      * @return The collector data, or null if no collector was found
      */
     public CollectorData getCollector(Block block) {
-        BlockState state = block.getState();
-        if (!(state instanceof TileState)) {
-            return null;
+        String collectorId = getCollectorId(block);
+        return collectorId == null ? null : collectors.get(collectorId);
+    }
+
+    /**
+     * Gets a collector by its ID.
+     *
+     * @param collectorId The collector ID
+     * @return The collector data, or null if no collector was found
+     */
+    public CollectorData getCollector(String collectorId) {
+        return collectors.get(collectorId);
+    }
+
+    /**
+     * Gets the scheduler that decides when each collector runs.
+     *
+     * @return The collection scheduler
+     */
+    public CollectionScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Adds a collector to the chunk index and activates it if its chunk is loaded.
+     *
+     * @param collectorId The collector ID
+     * @param collector The collector data
+     */
+    private synchronized void indexCollector(String collectorId, CollectorData collector) {
+        collectorsByChunk.computeIfAbsent(collector.getWorldId(), k -> new ChunkCollectorMap())
+                .add(collector.getChunkKey(), collectorId);
+        coverageIndex.add(collectorId, collector);
+
+        UUID worldId = collector.getWorldId();
+        collectorBlocks.put(worldId, collector.getBlockKey(), collectorId);
+        for (long chest : collector.getLinkedChestKeys()) {
+            linkedChestBlocks.put(worldId, chest, collectorId);
         }
 
-        TileState tileState = (TileState) state;
-        PersistentDataContainer blockData = tileState.getPersistentDataContainer();
-        if (!blockData.has(collectorKey, PersistentDataType.STRING)) {
-            return null;
+        // Changes to registered collectors are queued for the next write
+        collector.setChangeListener(changeListener);
+
+        if (collector.isChunkLoaded()) {
+            scheduler.schedule(collectorId, collector);
+            pendingStore.load(collectorId);
         }
+    }
 
-        String collectorId = blockData.get(collectorKey, PersistentDataType.STRING);
-        return collectors.get(collectorId);
+    /**
+     * Removes a collector from the chunk index and deactivates it.
+     *
+     * @param collectorId The collector ID
+     * @param collector The collector data
+     */
+    private synchronized void unindexCollector(String collectorId, CollectorData collector) {
+        scheduler.unschedule(collectorId);
+        coverageIndex.remove(collectorId);
+
+        UUID worldId = collector.getWorldId();
+        collectorBlocks.remove(worldId, collector.getBlockKey());
+        for (long chest : collector.getLinkedChestKeys()) {
+            linkedChestBlocks.remove(worldId, chest);
+        }
+        collector.setChangeListener(null);
+
+        ChunkCollectorMap worldChunks = collectorsByChunk.get(collector.getWorldId());
+        if (worldChunks != null) {
+            worldChunks.remove(collector.getChunkKey(), collectorId);
+        }
+    }
+
+    /**
+     * Activates the collectors in a chunk that has been loaded.
+     *
+     * @param chunk The chunk
+     */
+    public synchronized void activateChunk(Chunk chunk) {
+        for (String collectorId : getCollectorIdsInChunk(chunk)) {
+            CollectorData collector = collectors.get(collectorId);
+            if (collector != null && !scheduler.isScheduled(collectorId)) {
+                scheduler.schedule(collectorId, collector);
+                pendingStore.load(collectorId);
+            }
+        }
+    }
+
+    /**
+     * Deactivates the collectors in a chunk that is being unloaded.
+     *
+     * @param chunk The chunk
+     */
+    public synchronized void deactivateChunk(Chunk chunk) {
+        for (String collectorId : getCollectorIdsInChunk(chunk)) {
+            scheduler.unschedule(collectorId);
+        }
+    }
+
+    /**
+     * Deactivates all collectors in a world that is being unloaded.
+     *
+     * @param world The world
+     */
+    public synchronized void deactivateWorld(World world) {
+        ChunkCollectorMap worldChunks = collectorsByChunk.get(world.getUID());
+        if (worldChunks == null) {
+            return;
+        }
+
+        List<String> ids = new ArrayList<>();
+        worldChunks.collectAll(ids);
+        for (String collectorId : ids) {
+            scheduler.unschedule(collectorId);
+        }
+    }
+
+    /**
+     * Gets the number of collectors in loaded chunks.
+     *
+     * @return The number of active collectors
+     */
+    public int getActiveCollectorCount() {
+        return scheduler.size();
+    }
+
+    private List<String> getCollectorIdsInChunk(Chunk chunk) {
+        ChunkCollectorMap worldChunks = collectorsByChunk.get(chunk.getWorld().getUID());
+        return worldChunks == null ? Collections.emptyList() : worldChunks.get(chunk.getChunkKey());
+    }
+
+    /**
+     * Gets the index of container positions.
+     *
+     * @return The container index
+     */
+    public ContainerIndex getContainerIndex() {
+        return containerIndex;
+    }
+
+    /**
+     * Gets the cache of resolved collector containers.
+     *
+     * @return The container cache
+     */
+    public ContainerCache getContainerCache() {
+        return containerCache;
+    }
+
+    /**
+     * Gets the index of the chunks each collector covers.
+     *
+     * @return The coverage index
+     */
+    public CoverageIndex getCoverageIndex() {
+        return coverageIndex;
+    }
+
+    /**
+     * Changes the range level of a collector and updates the chunks it covers.
+     *
+     * @param collector The collector data
+     * @param rangeLevel The new range level
+     */
+    public void setRangeLevel(CollectorData collector, int rangeLevel) {
+        collector.setRangeLevel(rangeLevel);
+        coverageIndex.add(collector.getId(), collector);
+    }
+
+    /**
+     * Gets the store of items collectors could not store yet.
+     *
+     * @return The pending store
+     */
+    public PendingStore getPendingStore() {
+        return pendingStore;
     }
 
     /**
@@ -239,32 +740,63 @@ public class CollectorManager {
      * @return true if the chunk has a collector, false otherwise
      */
     public boolean hasCollectorInChunk(Chunk chunk) {
-        String chunkKey = getChunkKey(chunk);
-        for (CollectorData collector : collectors.values()) {
-            if (getChunkKey(collector.getChunk()).equals(chunkKey)) {
-                return true;
-            }
-        }
-        return false;
+        return getCollectorCountInChunk(chunk) > 0;
+    }
+
+    /**
+     * Gets the number of collectors in a chunk.
+     *
+     * @param chunk The chunk to check
+     * @return The number of collectors in the chunk
+     */
+    public synchronized int getCollectorCountInChunk(Chunk chunk) {
+        ChunkCollectorMap worldChunks = collectorsByChunk.get(chunk.getWorld().getUID());
+        return worldChunks == null ? 0 : worldChunks.count(chunk.getChunkKey());
     }
 
     /**
      * Gets all collectors.
      *
-     * @return A map of collector IDs to collector data
+     * @return An unmodifiable map of collector IDs to collector data, shared with other readers
      */
     public Map<String, CollectorData> getAllCollectors() {
-        return new HashMap<>(collectors);
+        return getSnapshot().getCollectors();
     }
 
     /**
-     * Gets a unique key for a chunk.
+     * Gets the current snapshot of the registry. The same instance is
+     * returned until a collector is created, removed or loaded.
      *
-     * @param chunk The chunk
-     * @return A unique key for the chunk
+     * @return The collector snapshot
      */
-    private String getChunkKey(Chunk chunk) {
-        return chunk.getWorld().getName() + ":" + chunk.getX() + ":" + chunk.getZ();
+    public CollectorSnapshot getSnapshot() {
+        CollectorSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (snapshot == null) {
+                snapshot = new CollectorSnapshot(collectors.values());
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Queues a changed collector for saving.
+     *
+     * @param collector The changed collector
+     */
+    private void collectorChanged(CollectorData collector) {
+        markDirty(collector.getId());
+    }
+
+    /**
+     * Drops the current snapshot after the set of collectors changed.
+     */
+    private synchronized void invalidateSnapshot() {
+        snapshot = null;
     }
 
     /**
@@ -285,39 +817,51 @@ public class CollectorManager {
             return false;
         }
 
+        // Linked chests are stored as positions in the collector's world
+        if (!chest.getWorld().getUID().equals(collector.getWorldId())) {
+            return false;
+        }
+
         // Check if the collector has reached the maximum number of linked chests
-        if (collector.getLinkedChests().size() >= collector.getMaxLinkedChests()) {
+        if (collector.getLinkedChestCount() >= collector.getMaxLinkedChests()) {
             return false;
         }
 
         // Link the chest to the collector
         collector.addLinkedChest(chest.getLocation());
+        linkedChestBlocks.put(chest.getLocation(), collector.getId());
+
+        markChestLinked(chest, collector.getId());
 
-        // Mark the chest as linked
+        return true;
+    }
+
+    /**
+     * Marks a chest's block data with the collector it is linked to.
+     *
+     * @param chest The chest block
+     * @param collectorId The collector ID
+     */
+    private void markChestLinked(Block chest, String collectorId) {
         BlockState state = chest.getState();
         if (state instanceof TileState) {
             TileState tileState = (TileState) state;
             PersistentDataContainer blockData = tileState.getPersistentDataContainer();
-
-            // Get the collector ID
-            String collectorId = null;
-            for (Map.Entry<String, CollectorData> entry : collectors.entrySet()) {
-                if (entry.getValue() == collector) {
-                    collectorId = entry.getKey();
-                    break;
-                }
-            }
-
-            if (collectorId != null) {
-                blockData.set(linkedChestKey, PersistentDataType.STRING, collectorId);
-                tileState.update();
-            }
+            blockData.set(linkedChestKey, PersistentDataType.STRING, collectorId);
+            tileState.update();
         }
+    }
 
-        // Save the collectors
-        saveCollectors();
-
-        return true;
+    /**
+     * Links a chest to a collector.
+     *
+     * @param collectorId The collector ID
+     * @param chest The chest block
+     * @return true if the chest was linked, false otherwise
+     */
+    public boolean linkChest(String collectorId, Block chest) {
+        CollectorData collector = collectors.get(collectorId);
+        return collector != null && linkChest(collector, chest);
     }
 
     /**
@@ -327,11 +871,12 @@ public class CollectorManager {
      * @return true if the chest was unlinked, false otherwise
      */
     public boolean unlinkChest(Block chest) {
-        // Check if the chest is linked to a collector
-        String collectorId = getLinkedCollectorId(chest);
-        if (collectorId == null) {
+        // Check if the chest, or the other half of its double chest, is linked to a collector
+        chest = findLinkedChest(chest);
+        if (chest == null) {
             return false;
         }
+        String collectorId = linkedChestBlocks.get(chest);
 
         // Get the collector
         CollectorData collector = collectors.get(collectorId);
@@ -344,6 +889,7 @@ public class CollectorManager {
         if (!removed) {
             return false;
         }
+        linkedChestBlocks.remove(chest.getLocation());
 
         // Remove the link from the chest
         BlockState state = chest.getState();
@@ -354,9 +900,6 @@ public class CollectorManager {
             tileState.update();
         }
 
-        // Save the collectors
-        saveCollectors();
-
         return true;
     }
 
@@ -371,29 +914,122 @@ public class CollectorManager {
     }
 
     /**
-     * Gets the ID of the collector that a chest is linked to.
+     * Gets the ID of the collector that a chest is linked to. A double chest
+     * is linked through either of its halves.
      *
      * @param chest The chest block
      * @return The collector ID, or null if the chest is not linked
      */
     public String getLinkedCollectorId(Block chest) {
-        BlockState state = chest.getState();
-        if (!(state instanceof TileState)) {
-            return null;
+        Block linked = findLinkedChest(chest);
+        return linked == null ? null : linkedChestBlocks.get(linked);
+    }
+
+    /**
+     * Drops the links of chests that are being destroyed. When one half of a
+     * linked double chest goes, the link moves to the half that remains.
+     *
+     * @param blocks The blocks being destroyed
+     * @return The number of links that were dropped or moved
+     */
+    public int unlinkDestroyedChests(List<Block> blocks) {
+        int changed = 0;
+        for (Block block : blocks) {
+            // Only the stored half of a double chest holds the link
+            String collectorId = linkedChestBlocks.remove(block.getLocation());
+            if (collectorId == null) {
+                continue;
+            }
+            changed++;
+
+            CollectorData collector = collectors.get(collectorId);
+            if (collector == null) {
+                continue;
+            }
+            collector.removeLinkedChest(block.getLocation());
+
+            Block partner = getChestPartner(block);
+            if (partner != null && !blocks.contains(partner) && linkedChestBlocks.get(partner) == null) {
+                collector.addLinkedChest(partner.getLocation());
+                linkedChestBlocks.put(partner.getLocation(), collectorId);
+                markChestLinked(partner, collectorId);
+            }
         }
 
-        TileState tileState = (TileState) state;
-        PersistentDataContainer blockData = tileState.getPersistentDataContainer();
+        return changed;
+    }
+
+    /**
+     * Finds the block a chest's link is stored under: the chest itself, or
+     * the other half of its double chest.
+     *
+     * @param chest The chest block
+     * @return The linked block, or null if the chest is not linked
+     */
+    private Block findLinkedChest(Block chest) {
+        if (linkedChestBlocks.get(chest) != null) {
+            return chest;
+        }
+
+        Block partner = getChestPartner(chest);
+        return partner != null && linkedChestBlocks.get(partner) != null ? partner : null;
+    }
+
+    /**
+     * Gets the other half of a double chest from the block data, without
+     * reading the block state.
+     *
+     * @param chest The chest block
+     * @return The other half, or null if the block is not part of a double chest
+     */
+    private Block getChestPartner(Block chest) {
+        Material type = chest.getType();
+        if (type != Material.CHEST && type != Material.TRAPPED_CHEST) {
+            return null;
+        }
 
-        if (!blockData.has(linkedChestKey, PersistentDataType.STRING)) {
+        BlockData data = chest.getBlockData();
+        if (!(data instanceof org.bukkit.block.data.type.Chest)) {
             return null;
         }
 
-        return blockData.get(linkedChestKey, PersistentDataType.STRING);
+        org.bukkit.block.data.type.Chest chestData = (org.bukkit.block.data.type.Chest) data;
+        BlockFace facing = chestData.getFacing();
+        BlockFace direction;
+        switch (chestData.getType()) {
+            case LEFT:
+                direction = rotateClockwise(facing);
+                break;
+            case RIGHT:
+                direction = rotateClockwise(rotateClockwise(rotateClockwise(facing)));
+                break;
+            default:
+                return null;
+        }
+
+        Block partner = chest.getRelative(direction);
+        return partner.getType() == type ? partner : null;
+    }
+
+    private static BlockFace rotateClockwise(BlockFace face) {
+        switch (face) {
+            case NORTH:
+                return BlockFace.EAST;
+            case EAST:
+                return BlockFace.SOUTH;
+            case SOUTH:
+                return BlockFace.WEST;
+            case WEST:
+                return BlockFace.NORTH;
+            default:
+                return face;
+        }
     }
 
     /**
-     * Auto-links nearby chests to a collector.
+     * Auto-links the chests nearest to a collector. Candidates come from the
+     * container index, which is built from chunk tile entities, so no blocks
+     * are scanned. The links are saved together with the next write.
      *
      * @param collector The collector data
      * @return The number of chests that were linked
@@ -408,28 +1044,22 @@ public class CollectorManager {
         int range = config.getDefaultStorageRange();
 
         // If the collector already has linked chests, don't auto-link more
-        if (!collector.getLinkedChests().isEmpty()) {
+        if (collector.getLinkedChestCount() > 0) {
             return 0;
         }
 
         Location location = collector.getBlockLocation();
         World world = location.getWorld();
 
-        // Check nearby blocks for chests
-        for (int x = -range; x <= range && linkedCount < maxAutoLinked; x++) {
-            for (int y = -range; y <= range && linkedCount < maxAutoLinked; y++) {
-                for (int z = -range; z <= range && linkedCount < maxAutoLinked; z++) {
-                    Block block = world.getBlockAt(
-                            location.getBlockX() + x,
-                            location.getBlockY() + y,
-                            location.getBlockZ() + z
-                    );
-
-                    if (block.getType() == Material.CHEST || block.getType() == Material.TRAPPED_CHEST) {
-                        if (linkChest(collector, block)) {
-                            linkedCount++;
-                        }
-                    }
+        // Check nearby containers for chests, nearest first
+        List<Long> positions = containerIndex.findInRange(world, location.getBlockX(), location.getBlockY(), location.getBlockZ(), range);
+        for (int i = 0; i < positions.size() && linkedCount < maxAutoLinked; i++) {
+            long position = positions.get(i);
+            Block block = world.getBlockAt(Block.getBlockKeyX(position), Block.getBlockKeyY(position), Block.getBlockKeyZ(position));
+
+            if (block.getType() == Material.CHEST || block.getType() == Material.TRAPPED_CHEST) {
+                if (linkChest(collector, block)) {
+                    linkedCount++;
                 }
             }
         }
@@ -447,6 +1077,16 @@ public class CollectorManager {
         playersLinkingChests.put(player.getUniqueId(), collectorId);
     }
 
+    /**
+     * Puts a player in chest linking mode.
+     *
+     * @param player The player
+     * @param collector The collector to link chests to
+     */
+    public void startChestLinking(Player player, CollectorData collector) {
+        startChestLinking(player, collector.getId());
+    }
+
     /**
      * Removes a player from chest linking mode.
      *
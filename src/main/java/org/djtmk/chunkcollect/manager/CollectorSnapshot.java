@@ -0,0 +1,62 @@
+package org.djtmk.chunkcollect.manager;
+
+import org.djtmk.chunkcollect.data.CollectorData;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable view of the registered collectors.
+ * <p>
+ * The collector manager publishes a new snapshot only after the set of
+ * collectors changed, so every reader between two changes shares the same
+ * instance instead of copying the registry. The collectors themselves are
+ * shared, not copied, so their settings are always current. Lookups by chunk
+ * go through the manager's chunk index instead.
+ */
+public final class CollectorSnapshot {
+    private final Map<String, CollectorData> byId;
+
+    /**
+     * Creates a snapshot of a set of collectors.
+     *
+     * @param collectors The registered collectors
+     */
+    CollectorSnapshot(Collection<CollectorData> collectors) {
+        Map<String, CollectorData> ids = new HashMap<>();
+        for (CollectorData collector : collectors) {
+            ids.put(collector.getId(), collector);
+        }
+        this.byId = Collections.unmodifiableMap(ids);
+    }
+
+    /**
+     * Gets every collector by ID.
+     *
+     * @return An unmodifiable map of collector IDs to collector data
+     */
+    public Map<String, CollectorData> getCollectors() {
+        return byId;
+    }
+
+    /**
+     * Gets a collector by its ID.
+     *
+     * @param collectorId The collector ID
+     * @return The collector data, or null if no collector was found
+     */
+    public CollectorData get(String collectorId) {
+        return byId.get(collectorId);
+    }
+
+    /**
+     * Gets the number of collectors.
+     *
+     * @return The number of collectors
+     */
+    public int size() {
+        return byId.size();
+    }
+}
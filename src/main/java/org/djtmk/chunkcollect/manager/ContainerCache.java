@@ -0,0 +1,417 @@
+package org.djtmk.chunkcollect.manager;
+
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Container;
+import org.bukkit.inventory.DoubleChestInventory;
+import org.bukkit.inventory.Inventory;
+import org.djtmk.chunkcollect.config.Config;
+import org.djtmk.chunkcollect.data.CollectorData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Caches the resolved containers of each collector.
+ * <p>
+ * Linked chests are resolved to their live inventories once and reused until a
+ * container in one of the chunks the result depends on changes, the chunk
+ * unloads, or the collector's linked chests change. Collectors without linked
+ * chests fall back to the nearest container from the {@link ContainerIndex}.
+ * <p>
+ * The cache also keeps a {@link ContainerCapacity} for each container and
+ * records when a cached container may have gained free space, so collectors
+ * only retry their pending items when storing them can succeed.
+ */
+public class ContainerCache {
+    private final Config config;
+    private final ContainerIndex containerIndex;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    // Collector IDs whose cached containers depend on a chunk, by world and chunk key
+    private final Map<UUID, Map<Long, Set<String>>> dependents = new HashMap<>();
+
+    // Collector IDs that store items in a container, by world and block key of the container
+    private final Map<UUID, Map<Long, Set<String>>> watchers = new HashMap<>();
+
+    // Collector IDs whose containers may have free space since they last tried to store items
+    private final Set<String> spaceSignals = new HashSet<>();
+
+    // Collector IDs signalled or invalidated since the last call to takeWakeups
+    private final Set<String> wakeups = new HashSet<>();
+
+    /**
+     * Creates a new container cache.
+     *
+     * @param config The plugin configuration
+     * @param containerIndex The container index used to find nearby containers
+     */
+    public ContainerCache(Config config, ContainerIndex containerIndex) {
+        this.config = config;
+        this.containerIndex = containerIndex;
+    }
+
+    /**
+     * Gets the inventories a collector stores items in, resolving them if needed.
+     *
+     * @param collectorId The collector ID
+     * @param collector The collector data
+     * @return The inventories of the collector's containers
+     */
+    public synchronized List<Inventory> getContainers(String collectorId, CollectorData collector) {
+        Entry entry = entries.get(collectorId);
+        if (entry != null) {
+            if (entry.isValid(collector)) {
+                return entry.inventories;
+            }
+            invalidate(collectorId);
+        }
+
+        entry = resolve(collector);
+        entries.put(collectorId, entry);
+        for (Long chunkKey : entry.chunkKeys) {
+            dependents.computeIfAbsent(entry.worldId, k -> new HashMap<>())
+                    .computeIfAbsent(chunkKey, k -> new HashSet<>())
+                    .add(collectorId);
+        }
+        for (Long position : entry.positions) {
+            watchers.computeIfAbsent(entry.worldId, k -> new HashMap<>())
+                    .computeIfAbsent(position, k -> new HashSet<>())
+                    .add(collectorId);
+        }
+
+        // Newly resolved containers may have room for what the collector couldn't store before
+        spaceSignals.add(collectorId);
+        return entry.inventories;
+    }
+
+    /**
+     * Gets the capacity models of a collector's containers, in the same order
+     * as {@link #getContainers}.
+     *
+     * @param collectorId The collector ID
+     * @return The capacity models, empty if the containers aren't resolved
+     */
+    public synchronized List<ContainerCapacity> getCapacities(String collectorId) {
+        Entry entry = entries.get(collectorId);
+        return entry == null ? List.of() : entry.capacities;
+    }
+
+    /**
+     * Records that an inventory may have gained free space, for every
+     * collector that stores items in it.
+     *
+     * @param inventory The inventory
+     */
+    public synchronized void signalSpace(Inventory inventory) {
+        Set<String> ids = invalidateCapacity(inventory);
+        if (ids != null) {
+            spaceSignals.addAll(ids);
+            wakeups.addAll(ids);
+        }
+    }
+
+    /**
+     * Marks the capacity models of every collector storing items in an
+     * inventory as outdated, because its contents changed.
+     *
+     * @param inventory The inventory
+     * @return The IDs of the collectors storing items in it, or null if none
+     */
+    public synchronized Set<String> invalidateCapacity(Inventory inventory) {
+        if (watchers.isEmpty()) {
+            return null;
+        }
+
+        Location location = inventory.getLocation();
+        if (location == null || location.getWorld() == null) {
+            return null;
+        }
+
+        Map<Long, Set<String>> worldWatchers = watchers.get(location.getWorld().getUID());
+        if (worldWatchers == null) {
+            return null;
+        }
+
+        Set<String> ids = worldWatchers.get(Block.getBlockKey(location.getBlockX(), location.getBlockY(), location.getBlockZ()));
+        if (ids == null) {
+            return null;
+        }
+
+        for (String collectorId : ids) {
+            Entry entry = entries.get(collectorId);
+            if (entry != null) {
+                for (ContainerCapacity capacity : entry.capacities) {
+                    capacity.invalidate();
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Gets and resets the collectors whose containers were signalled or
+     * invalidated since the last call, so waiting collectors can be woken.
+     *
+     * @return The collector IDs
+     */
+    public synchronized Set<String> takeWakeups() {
+        if (wakeups.isEmpty()) {
+            return Set.of();
+        }
+
+        Set<String> taken = new HashSet<>(wakeups);
+        wakeups.clear();
+        return taken;
+    }
+
+    /**
+     * Checks whether a collector's containers may have gained free space since
+     * the last call, and resets the signal.
+     *
+     * @param collectorId The collector ID
+     * @return true if the containers may have free space, false otherwise
+     */
+    public synchronized boolean consumeSpaceSignal(String collectorId) {
+        return spaceSignals.remove(collectorId);
+    }
+
+    /**
+     * Drops the cached containers of a collector.
+     *
+     * @param collectorId The collector ID
+     */
+    public synchronized void invalidate(String collectorId) {
+        Entry entry = entries.remove(collectorId);
+        if (entry == null) {
+            return;
+        }
+
+        unlink(dependents, entry.worldId, entry.chunkKeys, collectorId);
+        unlink(watchers, entry.worldId, entry.positions, collectorId);
+    }
+
+    /**
+     * Drops the cached containers and the space signal of a removed collector.
+     *
+     * @param collectorId The collector ID
+     */
+    public synchronized void remove(String collectorId) {
+        invalidate(collectorId);
+        spaceSignals.remove(collectorId);
+        wakeups.remove(collectorId);
+    }
+
+    /**
+     * Drops the cached containers of every collector that depends on a chunk.
+     *
+     * @param world The world
+     * @param chunkX The chunk X coordinate
+     * @param chunkZ The chunk Z coordinate
+     */
+    public synchronized void invalidateChunk(World world, int chunkX, int chunkZ) {
+        Map<Long, Set<String>> worldDependents = dependents.get(world.getUID());
+        if (worldDependents == null) {
+            return;
+        }
+
+        Set<String> ids = worldDependents.get(Chunk.getChunkKey(chunkX, chunkZ));
+        if (ids == null) {
+            return;
+        }
+
+        for (String collectorId : new ArrayList<>(ids)) {
+            invalidate(collectorId);
+            wakeups.add(collectorId);
+        }
+    }
+
+    /**
+     * Drops the cached containers that may be affected by a change to a block.
+     * Neighbouring chunks are included because a chest can join a double chest
+     * across a chunk border.
+     *
+     * @param block The changed block
+     */
+    public synchronized void invalidateAround(Block block) {
+        World world = block.getWorld();
+        int minChunkX = (block.getX() - 1) >> 4;
+        int maxChunkX = (block.getX() + 1) >> 4;
+        int minChunkZ = (block.getZ() - 1) >> 4;
+        int maxChunkZ = (block.getZ() + 1) >> 4;
+
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                invalidateChunk(world, chunkX, chunkZ);
+            }
+        }
+    }
+
+    /**
+     * Drops every cached container.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        dependents.clear();
+        watchers.clear();
+        spaceSignals.clear();
+        wakeups.clear();
+    }
+
+    /**
+     * Removes a collector ID from the keys it was registered under in a lookup.
+     *
+     * @param lookup The lookup, by world and key
+     * @param worldId The world ID
+     * @param keys The keys the collector was registered under
+     * @param collectorId The collector ID
+     */
+    private void unlink(Map<UUID, Map<Long, Set<String>>> lookup, UUID worldId, Set<Long> keys, String collectorId) {
+        Map<Long, Set<String>> worldLookup = lookup.get(worldId);
+        if (worldLookup == null) {
+            return;
+        }
+
+        for (Long key : keys) {
+            Set<String> ids = worldLookup.get(key);
+            if (ids != null && ids.remove(collectorId) && ids.isEmpty()) {
+                worldLookup.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Resolves the containers of a collector.
+     *
+     * @param collector The collector data
+     * @return The resolved cache entry
+     */
+    private Entry resolve(CollectorData collector) {
+        Location location = collector.getBlockLocation();
+        World world = location.getWorld();
+        Entry entry = new Entry(collector.getWorldId(), collector.getLinkedChestKeys());
+
+        // Convert linked chest positions to containers
+        for (long chest : entry.linkedChests) {
+            Block block = world.getBlockAt(Block.getBlockKeyX(chest), Block.getBlockKeyY(chest), Block.getBlockKeyZ(chest));
+            entry.chunkKeys.add(Chunk.getChunkKey(block.getX() >> 4, block.getZ() >> 4));
+            entry.add(block);
+        }
+
+        // If no linked chests, try to find a nearby container
+        if (entry.inventories.isEmpty()) {
+            int range = config.getDefaultStorageRange();
+            for (int chunkX = (location.getBlockX() - range) >> 4; chunkX <= (location.getBlockX() + range) >> 4; chunkX++) {
+                for (int chunkZ = (location.getBlockZ() - range) >> 4; chunkZ <= (location.getBlockZ() + range) >> 4; chunkZ++) {
+                    entry.chunkKeys.add(Chunk.getChunkKey(chunkX, chunkZ));
+                }
+            }
+
+            Block nearest = findNearestContainer(location, range);
+            if (nearest != null) {
+                entry.add(nearest);
+            }
+        }
+
+        return entry;
+    }
+
+    /**
+     * Finds the nearest container to a collector. Positions the index still
+     * holds for blocks that are no longer containers are pruned on the way.
+     *
+     * @param location The collector location
+     * @param range The search range
+     * @return The container block, or null if none is found
+     */
+    private Block findNearestContainer(Location location, int range) {
+        World world = location.getWorld();
+
+        while (true) {
+            Long position = containerIndex.findNearest(world, location.getBlockX(), location.getBlockY(), location.getBlockZ(), range);
+            if (position == null) {
+                return null;
+            }
+
+            Block block = world.getBlockAt(Block.getBlockKeyX(position), Block.getBlockKeyY(position), Block.getBlockKeyZ(position));
+            if (block.getState(false) instanceof Container) {
+                return block;
+            }
+
+            containerIndex.remove(world, block.getX(), block.getY(), block.getZ());
+        }
+    }
+
+    /**
+     * The resolved containers of a collector.
+     */
+    private static final class Entry {
+        private final UUID worldId;
+        private final long[] linkedChests;
+        private final List<Block> blocks = new ArrayList<>();
+        private final List<Material> types = new ArrayList<>();
+        private final List<Inventory> inventories = new ArrayList<>();
+        private final List<ContainerCapacity> capacities = new ArrayList<>();
+        private final Set<Long> chunkKeys = new HashSet<>();
+        private final Set<Long> positions = new HashSet<>();
+
+        private Entry(UUID worldId, long[] linkedChests) {
+            this.worldId = worldId;
+            this.linkedChests = linkedChests;
+        }
+
+        private void add(Block block) {
+            BlockState state = block.getState(false);
+            if (state instanceof Container) {
+                Inventory inventory = ((Container) state).getInventory();
+                blocks.add(block);
+                types.add(block.getType());
+                inventories.add(inventory);
+                capacities.add(new ContainerCapacity(inventory));
+                positions.add(block.getBlockKey());
+
+                // Both halves of a double chest share the inventory
+                if (inventory instanceof DoubleChestInventory) {
+                    DoubleChestInventory doubleChest = (DoubleChestInventory) inventory;
+                    addPosition(doubleChest.getLeftSide().getLocation());
+                    addPosition(doubleChest.getRightSide().getLocation());
+                }
+            }
+        }
+
+        private void addPosition(Location location) {
+            if (location != null) {
+                positions.add(Block.getBlockKey(location.getBlockX(), location.getBlockY(), location.getBlockZ()));
+            }
+        }
+
+        /**
+         * Checks that the collector's links are unchanged and every cached
+         * block still holds the same type of container. This catches changes
+         * that bypass block events, such as world editors.
+         */
+        private boolean isValid(CollectorData collector) {
+            if (!Arrays.equals(linkedChests, collector.getLinkedChestKeys())) {
+                return false;
+            }
+
+            for (int i = 0; i < blocks.size(); i++) {
+                if (blocks.get(i).getType() != types.get(i)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.djtmk.chunkcollect.manager;
+
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What a container can still take: its free slots and the item types it has
+ * partial stacks of.
+ * <p>
+ * The model is computed from the inventory on first use and kept until it is
+ * invalidated, either because items were inserted or because an inventory
+ * event touched the container. A full container is then skipped without
+ * calling {@link Inventory#addItem} at all.
+ */
+public class ContainerCapacity {
+    private final Inventory inventory;
+    private final List<ItemStack> partialStacks = new ArrayList<>();
+    private int freeSlots;
+    private volatile boolean known;
+
+    /**
+     * Creates a capacity model for an inventory.
+     *
+     * @param inventory The inventory
+     */
+    public ContainerCapacity(Inventory inventory) {
+        this.inventory = inventory;
+    }
+
+    /**
+     * Checks if the container can take at least one of an item.
+     *
+     * @param item The item
+     * @return true if the container has a free slot or a partial stack of the item, false otherwise
+     */
+    public boolean accepts(ItemStack item) {
+        if (!known) {
+            refresh();
+        }
+
+        if (freeSlots > 0) {
+            return true;
+        }
+
+        for (ItemStack partialStack : partialStacks) {
+            if (partialStack.isSimilar(item)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks the model as outdated, so it is recomputed on next use.
+     */
+    public void invalidate() {
+        known = false;
+    }
+
+    /**
+     * Recomputes the model from the inventory contents.
+     */
+    private void refresh() {
+        freeSlots = 0;
+        partialStacks.clear();
+
+        int maxStackSize = inventory.getMaxStackSize();
+        for (ItemStack stack : inventory.getStorageContents()) {
+            if (stack == null || stack.getType().isAir()) {
+                freeSlots++;
+                continue;
+            }
+
+            if (stack.getAmount() < Math.min(stack.getMaxStackSize(), maxStackSize) && !isPartial(stack)) {
+                partialStacks.add(stack.asOne());
+            }
+        }
+
+        known = true;
+    }
+
+    private boolean isPartial(ItemStack stack) {
+        for (ItemStack partialStack : partialStacks) {
+            if (partialStack.isSimilar(stack)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,221 @@
+package org.djtmk.chunkcollect.manager;
+
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Container;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Spatial index of container block positions, grouped by chunk.
+ * <p>
+ * A chunk is indexed from its tile entities the first time it is queried and
+ * kept current by block events until it unloads, so nearest-container lookups
+ * never scan blocks or take block state snapshots.
+ */
+public class ContainerIndex {
+    private final Map<UUID, Map<Long, Set<Long>>> worlds = new HashMap<>();
+
+    /**
+     * Adds a container block to the index if its chunk is indexed.
+     *
+     * @param block The container block
+     */
+    public synchronized void add(Block block) {
+        Set<Long> positions = getIndexedChunk(block.getWorld(), block.getX() >> 4, block.getZ() >> 4);
+        if (positions != null) {
+            positions.add(block.getBlockKey());
+        }
+    }
+
+    /**
+     * Removes a block from the index.
+     *
+     * @param block The block
+     */
+    public synchronized void remove(Block block) {
+        remove(block.getWorld(), block.getX(), block.getY(), block.getZ());
+    }
+
+    /**
+     * Removes a block position from the index.
+     *
+     * @param world The world
+     * @param x The block X coordinate
+     * @param y The block Y coordinate
+     * @param z The block Z coordinate
+     */
+    public synchronized void remove(World world, int x, int y, int z) {
+        Set<Long> positions = getIndexedChunk(world, x >> 4, z >> 4);
+        if (positions != null) {
+            positions.remove(Block.getBlockKey(x, y, z));
+        }
+    }
+
+    /**
+     * Drops the index of an unloaded chunk.
+     *
+     * @param chunk The chunk
+     */
+    public synchronized void unloadChunk(Chunk chunk) {
+        Map<Long, Set<Long>> chunks = worlds.get(chunk.getWorld().getUID());
+        if (chunks != null) {
+            chunks.remove(chunk.getChunkKey());
+        }
+    }
+
+    /**
+     * Drops the index of an unloaded world.
+     *
+     * @param world The world
+     */
+    public synchronized void unloadWorld(World world) {
+        worlds.remove(world.getUID());
+    }
+
+    /**
+     * Drops the whole index.
+     */
+    public synchronized void clear() {
+        worlds.clear();
+    }
+
+    /**
+     * Finds the container nearest to a position within a cube around it.
+     * The block at the position itself is only returned if no other container
+     * is in range. Unloaded chunks are skipped.
+     *
+     * @param world The world
+     * @param x The X coordinate of the center
+     * @param y The Y coordinate of the center
+     * @param z The Z coordinate of the center
+     * @param range The maximum distance along each axis
+     * @return The packed block key of the nearest container, or null if none is in range
+     */
+    public synchronized Long findNearest(World world, int x, int y, int z, int range) {
+        long self = Block.getBlockKey(x, y, z);
+        boolean selfIsContainer = false;
+        Long nearest = null;
+        long nearestDistance = Long.MAX_VALUE;
+
+        for (int chunkX = (x - range) >> 4; chunkX <= (x + range) >> 4; chunkX++) {
+            for (int chunkZ = (z - range) >> 4; chunkZ <= (z + range) >> 4; chunkZ++) {
+                Set<Long> positions = getOrIndexChunk(world, chunkX, chunkZ);
+                if (positions == null) {
+                    continue;
+                }
+
+                for (long position : positions) {
+                    if (position == self) {
+                        selfIsContainer = true;
+                        continue;
+                    }
+
+                    int dx = Block.getBlockKeyX(position) - x;
+                    int dy = Block.getBlockKeyY(position) - y;
+                    int dz = Block.getBlockKeyZ(position) - z;
+                    if (Math.abs(dx) > range || Math.abs(dy) > range || Math.abs(dz) > range) {
+                        continue;
+                    }
+
+                    long distance = (long) dx * dx + (long) dy * dy + (long) dz * dz;
+                    if (distance < nearestDistance) {
+                        nearestDistance = distance;
+                        nearest = position;
+                    }
+                }
+            }
+        }
+
+        if (nearest == null && selfIsContainer) {
+            return self;
+        }
+        return nearest;
+    }
+
+    /**
+     * Finds every container within a cube around a position, nearest first.
+     * The block at the position itself is excluded. Unloaded chunks are skipped.
+     *
+     * @param world The world
+     * @param x The X coordinate of the center
+     * @param y The Y coordinate of the center
+     * @param z The Z coordinate of the center
+     * @param range The maximum distance along each axis
+     * @return The packed block keys of the containers in range
+     */
+    public synchronized List<Long> findInRange(World world, int x, int y, int z, int range) {
+        long self = Block.getBlockKey(x, y, z);
+        List<long[]> found = new ArrayList<>();
+
+        for (int chunkX = (x - range) >> 4; chunkX <= (x + range) >> 4; chunkX++) {
+            for (int chunkZ = (z - range) >> 4; chunkZ <= (z + range) >> 4; chunkZ++) {
+                Set<Long> positions = getOrIndexChunk(world, chunkX, chunkZ);
+                if (positions == null) {
+                    continue;
+                }
+
+                for (long position : positions) {
+                    int dx = Block.getBlockKeyX(position) - x;
+                    int dy = Block.getBlockKeyY(position) - y;
+                    int dz = Block.getBlockKeyZ(position) - z;
+                    if (position == self || Math.abs(dx) > range || Math.abs(dy) > range || Math.abs(dz) > range) {
+                        continue;
+                    }
+
+                    found.add(new long[]{position, (long) dx * dx + (long) dy * dy + (long) dz * dz});
+                }
+            }
+        }
+
+        found.sort(Comparator.comparingLong(entry -> entry[1]));
+        List<Long> result = new ArrayList<>(found.size());
+        for (long[] entry : found) {
+            result.add(entry[0]);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the indexed container positions of a chunk, indexing it if it is loaded.
+     *
+     * @param world The world
+     * @param chunkX The chunk X coordinate
+     * @param chunkZ The chunk Z coordinate
+     * @return The container positions, or null if the chunk is not loaded
+     */
+    private Set<Long> getOrIndexChunk(World world, int chunkX, int chunkZ) {
+        Set<Long> positions = getIndexedChunk(world, chunkX, chunkZ);
+        if (positions != null) {
+            return positions;
+        }
+
+        if (!world.isChunkLoaded(chunkX, chunkZ)) {
+            return null;
+        }
+
+        positions = new HashSet<>();
+        for (BlockState state : world.getChunkAt(chunkX, chunkZ).getTileEntities(false)) {
+            if (state instanceof Container) {
+                positions.add(Block.getBlockKey(state.getX(), state.getY(), state.getZ()));
+            }
+        }
+
+        worlds.computeIfAbsent(world.getUID(), k -> new HashMap<>()).put(Chunk.getChunkKey(chunkX, chunkZ), positions);
+        return positions;
+    }
+
+    private Set<Long> getIndexedChunk(World world, int chunkX, int chunkZ) {
+        Map<Long, Set<Long>> chunks = worlds.get(world.getUID());
+        return chunks == null ? null : chunks.get(Chunk.getChunkKey(chunkX, chunkZ));
+    }
+}
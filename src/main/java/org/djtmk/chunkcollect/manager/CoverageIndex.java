@@ -0,0 +1,142 @@
+package org.djtmk.chunkcollect.manager;
+
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.djtmk.chunkcollect.data.CollectorData;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Maps each chunk to the collectors whose collection area overlaps it.
+ * <p>
+ * A collector with range level 0 covers its own chunk. A collector with a
+ * higher range level covers a cube of that many blocks around its block, which
+ * may span several chunks. Overlapping collectors use the index to agree on
+ * which of them takes each item.
+ */
+public class CoverageIndex {
+    private final Map<UUID, Map<Long, List<String>>> worlds = new HashMap<>();
+
+    // The world and chunk keys each collector was added under, so it can be removed after its range changed
+    private final Map<String, Coverage> coverages = new HashMap<>();
+
+    /**
+     * Adds a collector's collection area to the index.
+     *
+     * @param collectorId The collector ID
+     * @param collector The collector data
+     */
+    public synchronized void add(String collectorId, CollectorData collector) {
+        remove(collectorId);
+
+        int blockX = collector.getBlockX();
+        int blockZ = collector.getBlockZ();
+        int range = collector.getRangeLevel();
+        Coverage coverage = new Coverage(collector.getWorldId());
+
+        if (range > 0) {
+            for (int chunkX = (blockX - range) >> 4; chunkX <= (blockX + range) >> 4; chunkX++) {
+                for (int chunkZ = (blockZ - range) >> 4; chunkZ <= (blockZ + range) >> 4; chunkZ++) {
+                    coverage.chunkKeys.add(Chunk.getChunkKey(chunkX, chunkZ));
+                }
+            }
+        } else {
+            coverage.chunkKeys.add(collector.getChunkKey());
+        }
+
+        Map<Long, List<String>> chunks = worlds.computeIfAbsent(coverage.worldId, k -> new HashMap<>());
+        for (Long chunkKey : coverage.chunkKeys) {
+            chunks.computeIfAbsent(chunkKey, k -> new ArrayList<>(1)).add(collectorId);
+        }
+        coverages.put(collectorId, coverage);
+    }
+
+    /**
+     * Removes a collector from the index.
+     *
+     * @param collectorId The collector ID
+     */
+    public synchronized void remove(String collectorId) {
+        Coverage coverage = coverages.remove(collectorId);
+        if (coverage == null) {
+            return;
+        }
+
+        Map<Long, List<String>> chunks = worlds.get(coverage.worldId);
+        if (chunks == null) {
+            return;
+        }
+
+        for (Long chunkKey : coverage.chunkKeys) {
+            List<String> ids = chunks.get(chunkKey);
+            if (ids != null && ids.remove(collectorId) && ids.isEmpty()) {
+                chunks.remove(chunkKey);
+            }
+        }
+    }
+
+    /**
+     * Gets the collectors whose collection area overlaps a chunk.
+     *
+     * @param world The world
+     * @param chunkX The chunk X coordinate
+     * @param chunkZ The chunk Z coordinate
+     * @return A copy of the collector IDs, empty if none
+     */
+    public synchronized List<String> getCollectors(World world, int chunkX, int chunkZ) {
+        Map<Long, List<String>> chunks = worlds.get(world.getUID());
+        if (chunks == null) {
+            return Collections.emptyList();
+        }
+
+        List<String> ids = chunks.get(Chunk.getChunkKey(chunkX, chunkZ));
+        return ids == null ? Collections.emptyList() : List.copyOf(ids);
+    }
+
+    /**
+     * Clears the index.
+     */
+    public synchronized void clear() {
+        worlds.clear();
+        coverages.clear();
+    }
+
+    /**
+     * Checks if an item position is inside a collector's collection area.
+     *
+     * @param collector The collector data
+     * @param x The X coordinate
+     * @param y The Y coordinate
+     * @param z The Z coordinate
+     * @return true if the position is covered, false otherwise
+     */
+    public static boolean covers(CollectorData collector, double x, double y, double z) {
+        int range = collector.getRangeLevel();
+
+        if (range > 0) {
+            return Math.abs(x - collector.getBlockX()) <= range
+                    && Math.abs(y - collector.getBlockY()) <= range
+                    && Math.abs(z - collector.getBlockZ()) <= range;
+        }
+
+        return ((int) Math.floor(x) >> 4) == collector.getChunkX()
+                && ((int) Math.floor(z) >> 4) == collector.getChunkZ();
+    }
+
+    /**
+     * The chunks a collector was added under.
+     */
+    private static final class Coverage {
+        private final UUID worldId;
+        private final List<Long> chunkKeys = new ArrayList<>();
+
+        private Coverage(UUID worldId) {
+            this.worldId = worldId;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package org.djtmk.chunkcollect.manager;
+
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Item;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Live index of dropped item entities, grouped by the chunk they are in.
+ * <p>
+ * The index is filled and pruned from entity events, so collectors only ever
+ * look at item entities instead of iterating every entity in a chunk. Items
+ * that drift into another chunk are refiled when their chunk is read and by
+ * the periodic {@link #sweep()}.
+ */
+public class ItemIndex {
+    private final Map<UUID, WorldItems> worlds = new HashMap<>();
+
+    /**
+     * Starts tracking an item entity.
+     *
+     * @param item The item entity
+     */
+    public synchronized void track(Item item) {
+        Location location = item.getLocation();
+        World world = location.getWorld();
+        if (world == null) {
+            return;
+        }
+
+        WorldItems worldItems = worlds.computeIfAbsent(world.getUID(), k -> new WorldItems());
+        worldItems.file(item, Chunk.getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4));
+    }
+
+    /**
+     * Stops tracking an item entity.
+     *
+     * @param item The item entity
+     */
+    public synchronized void untrack(Item item) {
+        for (WorldItems worldItems : worlds.values()) {
+            if (worldItems.unfile(item)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops tracking every item in a world.
+     *
+     * @param world The world
+     */
+    public synchronized void clearWorld(World world) {
+        worlds.remove(world.getUID());
+    }
+
+    /**
+     * Adds the tracked items in a chunk to a list. Items that are no longer
+     * valid are pruned and items that moved to another chunk are refiled.
+     *
+     * @param world The world
+     * @param chunkX The chunk X coordinate
+     * @param chunkZ The chunk Z coordinate
+     * @param out The list to add the items to
+     */
+    public synchronized void getItems(World world, int chunkX, int chunkZ, List<Item> out) {
+        WorldItems worldItems = worlds.get(world.getUID());
+        if (worldItems == null) {
+            return;
+        }
+
+        long key = Chunk.getChunkKey(chunkX, chunkZ);
+        Set<Item> items = worldItems.byChunk.get(key);
+        if (items == null) {
+            return;
+        }
+
+        List<Item> moved = null;
+        for (Iterator<Item> iterator = items.iterator(); iterator.hasNext(); ) {
+            Item item = iterator.next();
+            if (!item.isValid()) {
+                iterator.remove();
+                worldItems.chunkOf.remove(item);
+                continue;
+            }
+
+            Location location = item.getLocation();
+            if (location.getBlockX() >> 4 != chunkX || location.getBlockZ() >> 4 != chunkZ) {
+                if (moved == null) {
+                    moved = new ArrayList<>();
+                }
+                moved.add(item);
+                continue;
+            }
+
+            out.add(item);
+        }
+
+        if (moved != null) {
+            for (Item item : moved) {
+                track(item);
+            }
+        }
+
+        if (items.isEmpty()) {
+            worldItems.byChunk.remove(key);
+        }
+    }
+
+    /**
+     * Prunes invalid items and refiles items that moved between chunks.
+     */
+    public synchronized void sweep() {
+        List<Item> moved = new ArrayList<>();
+
+        for (WorldItems worldItems : worlds.values()) {
+            for (Iterator<Map.Entry<Item, Long>> iterator = worldItems.chunkOf.entrySet().iterator(); iterator.hasNext(); ) {
+                Map.Entry<Item, Long> entry = iterator.next();
+                Item item = entry.getKey();
+
+                if (!item.isValid()) {
+                    iterator.remove();
+                    worldItems.removeFromChunk(item, entry.getValue());
+                    continue;
+                }
+
+                Location location = item.getLocation();
+                if (Chunk.getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4) != entry.getValue()) {
+                    moved.add(item);
+                }
+            }
+        }
+
+        for (Item item : moved) {
+            untrack(item);
+            track(item);
+        }
+    }
+
+    /**
+     * Gets the number of tracked items.
+     *
+     * @return The number of tracked items
+     */
+    public synchronized int size() {
+        int size = 0;
+        for (WorldItems worldItems : worlds.values()) {
+            size += worldItems.chunkOf.size();
+        }
+        return size;
+    }
+
+    /**
+     * Tracked items of a single world.
+     */
+    private static final class WorldItems {
+        private final Map<Long, Set<Item>> byChunk = new HashMap<>();
+        private final Map<Item, Long> chunkOf = new HashMap<>();
+
+        private void file(Item item, long key) {
+            Long previous = chunkOf.put(item, key);
+            if (previous != null) {
+                if (previous == key) {
+                    return;
+                }
+                removeFromChunk(item, previous);
+            }
+            byChunk.computeIfAbsent(key, k -> new HashSet<>()).add(item);
+        }
+
+        private boolean unfile(Item item) {
+            Long key = chunkOf.remove(item);
+            if (key == null) {
+                return false;
+            }
+            removeFromChunk(item, key);
+            return true;
+        }
+
+        private void removeFromChunk(Item item, long key) {
+            Set<Item> items = byChunk.get(key);
+            if (items != null) {
+                items.remove(item);
+                if (items.isEmpty()) {
+                    byChunk.remove(key);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package org.djtmk.chunkcollect.manager;
+
+import org.djtmk.chunkcollect.ChunkCollect;
+import org.djtmk.chunkcollect.data.PendingBuffer;
+import org.djtmk.chunkcollect.database.DatabaseManager;
+import org.djtmk.chunkcollect.task.PlatformScheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Keeps the pending buffers of all collectors and persists them.
+ * <p>
+ * A collector's stored buffer is read when its chunk is first activated and
+ * merged into whatever it collected in the meantime. Changed buffers are
+ * serialized on the main thread, or the global region thread on Folia, and
+ * written in batches by the collector manager's database writer. That single
+ * thread owns the connection, so writes keep their order with the collector
+ * writes and the main thread never waits on the database while the server runs.
+ */
+public class PendingStore {
+    // How often changed buffers are written, in ticks
+    private static final long FLUSH_INTERVAL = 100L;
+
+    private final ChunkCollect plugin;
+    private final DatabaseManager databaseManager;
+    private final ExecutorService writer;
+    private final Map<String, PendingBuffer> buffers = new HashMap<>();
+
+    // Collector IDs whose stored buffer has been merged, or is being read
+    private final Set<String> loaded = new HashSet<>();
+    private final Set<String> loading = new HashSet<>();
+
+    // Collector IDs whose stored buffer can't be deserialized; it is kept as is and never overwritten
+    private final Set<String> unreadable = new HashSet<>();
+
+    // Collector IDs whose buffer changed since it was last written
+    private final Set<String> dirty = new HashSet<>();
+
+    // IDs of removed collectors whose stored buffer is still to be deleted
+    private final Set<String> removed = new HashSet<>();
+
+    private PlatformScheduler.Task flushTask;
+
+    /**
+     * Creates a new pending store.
+     *
+     * @param plugin The plugin instance
+     * @param databaseManager The database manager
+     * @param writer The single thread that does all database work, owned by the caller
+     */
+    public PendingStore(ChunkCollect plugin, DatabaseManager databaseManager, ExecutorService writer) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.writer = writer;
+    }
+
+    /**
+     * Starts writing changed buffers periodically.
+     */
+    public void start() {
+        flushTask = plugin.getPlatformScheduler().runGlobalTimer(this::flush, FLUSH_INTERVAL, FLUSH_INTERVAL);
+    }
+
+    /**
+     * Gets the pending buffer of a collector.
+     *
+     * @param collectorId The collector ID
+     * @return The pending buffer
+     */
+    public synchronized PendingBuffer get(String collectorId) {
+        return buffers.computeIfAbsent(collectorId, k -> new PendingBuffer());
+    }
+
+    /**
+     * Gets the number of items in a collector's buffer without creating one.
+     *
+     * @param collectorId The collector ID
+     * @return The number of pending items
+     */
+    public synchronized long getTotal(String collectorId) {
+        PendingBuffer buffer = buffers.get(collectorId);
+        return buffer == null ? 0 : buffer.getTotal();
+    }
+
+    /**
+     * Marks a collector's buffer as changed so it is written with the next batch.
+     *
+     * @param collectorId The collector ID
+     */
+    public synchronized void markDirty(String collectorId) {
+        dirty.add(collectorId);
+    }
+
+    /**
+     * Reads a collector's stored buffer in the background, unless it was
+     * already read. The result is merged on the main or global region thread.
+     * A buffer that could not be read is not written, so the stored items are
+     * never overwritten, and it is read again with the next flush.
+     *
+     * @param collectorId The collector ID
+     */
+    public synchronized void load(String collectorId) {
+        if (loaded.contains(collectorId) || unreadable.contains(collectorId) || !loading.add(collectorId)) {
+            return;
+        }
+
+        writer.execute(() -> {
+            boolean handedOff = false;
+            try {
+                byte[] data = databaseManager.loadPendingItems(collectorId);
+                if (plugin.isEnabled()) {
+                    plugin.getPlatformScheduler().runGlobal(() -> finishLoad(collectorId, data));
+                    handedOff = true;
+                }
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to load pending items of collector " + collectorId
+                        + ", they will be read again before the buffer is saved", e);
+            } finally {
+                if (!handedOff) {
+                    abortLoad(collectorId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes a removed collector's buffer, hands its items to a callback and
+     * deletes it from storage. A stored buffer that was not merged yet is
+     * read first, so its items are handed over too; if it can't be read it is
+     * kept in storage instead.
+     *
+     * @param collectorId The collector ID
+     * @param release Receives the items, on any thread: once for the buffer in memory and once
+     *                for the stored buffer if it was not merged
+     */
+    public synchronized void remove(String collectorId, Consumer<List<PendingBuffer.Entry>> release) {
+        PendingBuffer buffer = buffers.remove(collectorId);
+        boolean merged = loaded.remove(collectorId);
+        loading.remove(collectorId);
+        boolean keepStored = unreadable.remove(collectorId);
+        dirty.remove(collectorId);
+
+        if (buffer != null && !buffer.isEmpty()) {
+            release.accept(buffer.takeAll());
+        }
+
+        if (keepStored) {
+            plugin.getLogger().warning("Keeping the unreadable pending items of removed collector " + collectorId + " in the database.");
+            return;
+        }
+
+        if (merged) {
+            removed.add(collectorId);
+            write(takeDirty());
+            return;
+        }
+
+        // The stored items were never merged, so read them before deleting them
+        writer.execute(() -> {
+            PendingBuffer stored;
+            try {
+                byte[] data = databaseManager.loadPendingItems(collectorId);
+                stored = data == null ? null : PendingBuffer.fromBytes(data);
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to read pending items of removed collector " + collectorId
+                        + ", they are kept in the database", e);
+                return;
+            }
+
+            if (stored != null && !stored.isEmpty()) {
+                release.accept(stored.takeAll());
+            }
+
+            Map<String, byte[]> batch = new HashMap<>();
+            batch.put(collectorId, null);
+            if (!databaseManager.savePendingItems(batch)) {
+                requeue(batch);
+            }
+        });
+    }
+
+    /**
+     * Writes every changed buffer whose stored state has been merged.
+     */
+    public synchronized void flush() {
+        // Changed buffers whose stored state could not be read yet are read before they can be written
+        for (String collectorId : new ArrayList<>(dirty)) {
+            if (!loaded.contains(collectorId)) {
+                load(collectorId);
+            }
+        }
+
+        write(takeDirty());
+    }
+
+    /**
+     * Stops the periodic writes and queues the remaining changes on the
+     * database writer. This is used when the plugin shuts down, before the
+     * writer is stopped.
+     */
+    public synchronized void stop() {
+        if (flushTask != null) {
+            flushTask.cancel();
+        }
+
+        flush();
+    }
+
+    /**
+     * Writes the changes that could not be queued. This writes directly, so
+     * it is only used when the plugin shuts down, after the database writer
+     * finished.
+     */
+    public synchronized void close() {
+        // Buffers whose stored state was not read yet are merged and written directly
+        for (String collectorId : new HashSet<>(dirty)) {
+            if (loaded.contains(collectorId) || unreadable.contains(collectorId)) {
+                continue;
+            }
+
+            loading.add(collectorId);
+            try {
+                finishLoad(collectorId, databaseManager.loadPendingItems(collectorId));
+            } catch (Exception e) {
+                loading.remove(collectorId);
+                plugin.getLogger().log(Level.WARNING, "Failed to load pending items of collector " + collectorId
+                        + ", the stored items are kept and the newer ones are lost", e);
+            }
+        }
+
+        Map<String, byte[]> batch = takeDirty();
+        if (!batch.isEmpty() && !databaseManager.savePendingItems(batch)) {
+            requeue(batch);
+            plugin.getLogger().severe("Failed to save the pending items of " + batch.size()
+                    + " collectors. They keep the items they had at their last successful save.");
+        }
+    }
+
+    /**
+     * Gets the total number of items in all buffers.
+     *
+     * @return The number of pending items
+     */
+    public synchronized long getItemCount() {
+        long total = 0;
+        for (PendingBuffer buffer : buffers.values()) {
+            total += buffer.getTotal();
+        }
+        return total;
+    }
+
+    /**
+     * Gets the number of buffer changes waiting to be written.
+     *
+     * @return The number of dirty buffers
+     */
+    public synchronized int getDirtyCount() {
+        return dirty.size();
+    }
+
+    /**
+     * Merges a collector's stored buffer into its in-memory buffer.
+     *
+     * @param collectorId The collector ID
+     * @param data The serialized stored buffer, or null if there was none
+     */
+    private synchronized void finishLoad(String collectorId, byte[] data) {
+        // Removed while it was being read
+        if (!loading.remove(collectorId)) {
+            return;
+        }
+
+        if (data == null) {
+            loaded.add(collectorId);
+            return;
+        }
+
+        PendingBuffer stored;
+        try {
+            stored = PendingBuffer.fromBytes(data);
+        } catch (Exception e) {
+            // Never marked as loaded, so the stored items are never overwritten
+            unreadable.add(collectorId);
+            plugin.getLogger().log(Level.SEVERE, "Failed to read pending items of collector " + collectorId
+                    + ". The stored items are kept, but new pending items of this collector are not saved.", e);
+            return;
+        }
+
+        loaded.add(collectorId);
+        PendingBuffer buffer = get(collectorId);
+        for (PendingBuffer.Entry entry : stored.getEntries()) {
+            buffer.add(entry.getItem(), entry.getAmount(), Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Forgets a read that did not finish, so it can be started again.
+     *
+     * @param collectorId The collector ID
+     */
+    private synchronized void abortLoad(String collectorId) {
+        loading.remove(collectorId);
+    }
+
+    /**
+     * Serializes the changed buffers whose stored state has been merged, and
+     * the deletions of removed collectors, and marks them clean.
+     *
+     * @return The batch, where null values delete the stored buffer
+     */
+    private Map<String, byte[]> takeDirty() {
+        Map<String, byte[]> batch = new HashMap<>();
+        for (String collectorId : removed) {
+            batch.put(collectorId, null);
+        }
+        removed.clear();
+
+        for (Iterator<String> iterator = dirty.iterator(); iterator.hasNext(); ) {
+            String collectorId = iterator.next();
+
+            // Writing before the stored buffer is merged would overwrite it
+            if (!loaded.contains(collectorId)) {
+                continue;
+            }
+
+            PendingBuffer buffer = buffers.get(collectorId);
+            batch.put(collectorId, buffer == null || buffer.isEmpty() ? null : buffer.toBytes());
+            iterator.remove();
+        }
+        return batch;
+    }
+
+    /**
+     * Hands a batch of serialized buffers to the background writer.
+     *
+     * @param batch The batch, where null values delete the stored buffer
+     */
+    private void write(Map<String, byte[]> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        writer.execute(() -> {
+            if (!databaseManager.savePendingItems(batch)) {
+                // Retry with the state at the next write
+                requeue(batch);
+            }
+        });
+    }
+
+    /**
+     * Marks the buffers of a batch that failed to save as changed again, so
+     * they are written with the next batch.
+     *
+     * @param batch The batch, where null values delete the stored buffer
+     */
+    private synchronized void requeue(Map<String, byte[]> batch) {
+        for (String collectorId : batch.keySet()) {
+            if (loaded.contains(collectorId) || buffers.containsKey(collectorId)) {
+                dirty.add(collectorId);
+            } else {
+                removed.add(collectorId);
+            }
+        }
+    }
+}
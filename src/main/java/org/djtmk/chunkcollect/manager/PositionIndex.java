@@ -0,0 +1,101 @@
+package org.djtmk.chunkcollect.manager;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Maps block positions to collector IDs, by world and packed block key.
+ * <p>
+ * Lookups only need the block's coordinates, so checking a block that holds
+ * nothing costs a single hash probe without reading the block's state.
+ */
+public class PositionIndex {
+    private final Map<UUID, Map<Long, String>> worlds = new HashMap<>();
+
+    /**
+     * Maps a block position to a collector.
+     *
+     * @param location The block location
+     * @param collectorId The collector ID
+     */
+    public void put(Location location, String collectorId) {
+        put(location.getWorld().getUID(), Block.getBlockKey(location.getBlockX(), location.getBlockY(), location.getBlockZ()), collectorId);
+    }
+
+    /**
+     * Maps a packed block position to a collector.
+     *
+     * @param worldId The world UUID
+     * @param blockKey The packed block key
+     * @param collectorId The collector ID
+     */
+    public synchronized void put(UUID worldId, long blockKey, String collectorId) {
+        worlds.computeIfAbsent(worldId, k -> new HashMap<>()).put(blockKey, collectorId);
+    }
+
+    /**
+     * Removes a block position.
+     *
+     * @param location The block location
+     * @return The collector ID the position was mapped to, or null if none
+     */
+    public String remove(Location location) {
+        return remove(location.getWorld().getUID(), Block.getBlockKey(location.getBlockX(), location.getBlockY(), location.getBlockZ()));
+    }
+
+    /**
+     * Removes a packed block position.
+     *
+     * @param worldId The world UUID
+     * @param blockKey The packed block key
+     * @return The collector ID the position was mapped to, or null if none
+     */
+    public synchronized String remove(UUID worldId, long blockKey) {
+        Map<Long, String> positions = worlds.get(worldId);
+        if (positions == null) {
+            return null;
+        }
+
+        String collectorId = positions.remove(blockKey);
+        if (positions.isEmpty()) {
+            worlds.remove(worldId);
+        }
+        return collectorId;
+    }
+
+    /**
+     * Gets the collector a block is mapped to.
+     *
+     * @param block The block
+     * @return The collector ID, or null if none
+     */
+    public synchronized String get(Block block) {
+        return get(block.getWorld(), block.getX(), block.getY(), block.getZ());
+    }
+
+    /**
+     * Gets the collector a block position is mapped to.
+     *
+     * @param world The world
+     * @param x The block X coordinate
+     * @param y The block Y coordinate
+     * @param z The block Z coordinate
+     * @return The collector ID, or null if none
+     */
+    public synchronized String get(World world, int x, int y, int z) {
+        Map<Long, String> positions = worlds.get(world.getUID());
+        return positions == null ? null : positions.get(Block.getBlockKey(x, y, z));
+    }
+
+    /**
+     * Clears the index.
+     */
+    public synchronized void clear() {
+        worlds.clear();
+    }
+}
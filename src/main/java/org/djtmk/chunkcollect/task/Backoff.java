@@ -0,0 +1,77 @@
+package org.djtmk.chunkcollect.task;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the collectors whose containers are all full.
+ * <p>
+ * Every run that can't store anything raises a collector's level by one, up
+ * to a maximum, and the collector waits {@code 2^level} intervals before its
+ * next run. A collector leaves the backoff when a run stores items again or
+ * when its containers signal that they may have space.
+ */
+final class Backoff {
+    private final int maxLevel;
+    private final Map<String, Integer> levels = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new backoff.
+     *
+     * @param maxLevel The highest level, so the longest wait is {@code 2^maxLevel} intervals
+     */
+    Backoff(int maxLevel) {
+        this.maxLevel = maxLevel;
+    }
+
+    /**
+     * Records a run that could not store anything.
+     *
+     * @param collectorId The collector ID
+     * @return The collector's new level
+     */
+    int block(String collectorId) {
+        return levels.merge(collectorId, 1, (current, one) -> Math.min(current + one, maxLevel));
+    }
+
+    /**
+     * Checks if a level is the highest one. A collector that reaches it has
+     * waited long enough that a missed container event is more likely than
+     * containers that are still full.
+     *
+     * @param level The level
+     * @return true if the level is the highest one, false otherwise
+     */
+    boolean isMaxLevel(int level) {
+        return level >= maxLevel;
+    }
+
+    /**
+     * Checks if a collector is backing off.
+     *
+     * @param collectorId The collector ID
+     * @return true if the collector's last run could not store anything, false otherwise
+     */
+    boolean isBlocked(String collectorId) {
+        return levels.containsKey(collectorId);
+    }
+
+    /**
+     * Takes a collector out of the backoff.
+     *
+     * @param collectorId The collector ID
+     * @return true if the collector was backing off, false otherwise
+     */
+    boolean clear(String collectorId) {
+        return levels.remove(collectorId) != null;
+    }
+
+    /**
+     * Gets the number of collectors backing off.
+     *
+     * @return The number of collectors
+     */
+    int size() {
+        return levels.size();
+    }
+}
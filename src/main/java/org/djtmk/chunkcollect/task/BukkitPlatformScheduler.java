@@ -0,0 +1,51 @@
+package org.djtmk.chunkcollect.task;
+
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Scheduler for Paper and Spigot, where all work runs on the main thread.
+ */
+public class BukkitPlatformScheduler implements PlatformScheduler {
+    private final Plugin plugin;
+
+    /**
+     * Creates a new Bukkit scheduler.
+     *
+     * @param plugin The plugin instance
+     */
+    public BukkitPlatformScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean isRegionized() {
+        return false;
+    }
+
+    @Override
+    public void runGlobal(Runnable task) {
+        plugin.getServer().getScheduler().runTask(plugin, task);
+    }
+
+    @Override
+    public Task runGlobalTimer(Runnable task, long delay, long period) {
+        BukkitTask bukkitTask = plugin.getServer().getScheduler().runTaskTimer(plugin, task, delay, period);
+        return bukkitTask::cancel;
+    }
+
+    @Override
+    public void runAtChunk(World world, int chunkX, int chunkZ, long delay, Runnable task) {
+        if (delay > 0) {
+            plugin.getServer().getScheduler().runTaskLater(plugin, task, delay);
+        } else {
+            plugin.getServer().getScheduler().runTask(plugin, task);
+        }
+    }
+
+    @Override
+    public boolean isOwnedByCurrentThread(World world, int chunkX, int chunkZ) {
+        return true;
+    }
+}
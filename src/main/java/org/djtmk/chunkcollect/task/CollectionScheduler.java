@@ -0,0 +1,206 @@
+package org.djtmk.chunkcollect.task;
+
+import org.djtmk.chunkcollect.config.Config;
+import org.djtmk.chunkcollect.data.CollectorData;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timing wheel that hands out collectors only on the ticks they are due.
+ * <p>
+ * Each collector sits in the bucket of its next due tick. Collectors that are
+ * due further out than one wheel rotation stay in their bucket and are skipped
+ * until their tick comes around. Unscheduling is lazy: stale bucket entries are
+ * dropped when their bucket is drained.
+ */
+public class CollectionScheduler {
+    // Must be a power of two
+    private static final int WHEEL_SIZE = 256;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final Config config;
+    private final List<List<Entry>> buckets = new ArrayList<>(WHEEL_SIZE);
+
+    // The authoritative due tick of every scheduled collector
+    private final Map<String, Long> dueTicks = new HashMap<>();
+
+    private long currentTick;
+
+    /**
+     * Creates a new collection scheduler.
+     *
+     * @param config The plugin configuration
+     */
+    public CollectionScheduler(Config config) {
+        this.config = config;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            buckets.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Gets the collection interval of a collector based on its speed level.
+     *
+     * @param collector The collector data
+     * @return The interval in ticks, at least 1
+     */
+    public int getInterval(CollectorData collector) {
+        int interval = config.getDefaultCollectionInterval() - (collector.getSpeedLevel() * 2);
+        return Math.max(interval, 1);
+    }
+
+    /**
+     * Schedules a newly tracked collector. The first run is placed at a phase
+     * offset derived from the collector ID, so collectors sharing an interval
+     * are spread over the interval instead of all firing on the same tick.
+     *
+     * @param collectorId The collector ID
+     * @param collector The collector data
+     */
+    public synchronized void schedule(String collectorId, CollectorData collector) {
+        int interval = getInterval(collector);
+        int phase = Math.floorMod(collectorId.hashCode(), interval);
+        enqueue(collectorId, currentTick + 1 + phase);
+    }
+
+    /**
+     * Schedules the next run of a collector one interval after the current tick.
+     *
+     * @param collectorId The collector ID
+     * @param collector The collector data
+     */
+    public synchronized void reschedule(String collectorId, CollectorData collector) {
+        reschedule(collectorId, getInterval(collector));
+    }
+
+    /**
+     * Schedules the next run of a collector a number of ticks after the current tick.
+     *
+     * @param collectorId The collector ID
+     * @param delay The delay in ticks, at least 1
+     */
+    public synchronized void reschedule(String collectorId, int delay) {
+        enqueue(collectorId, currentTick + Math.max(delay, 1));
+    }
+
+    /**
+     * Moves a scheduled collector's next run forward to the next tick.
+     *
+     * @param collectorId The collector ID
+     */
+    public synchronized void wake(String collectorId) {
+        Long dueTick = dueTicks.get(collectorId);
+        if (dueTick != null && dueTick > currentTick + 1) {
+            enqueue(collectorId, currentTick + 1);
+        }
+    }
+
+    /**
+     * Removes a collector from the schedule.
+     *
+     * @param collectorId The collector ID
+     */
+    public synchronized void unschedule(String collectorId) {
+        dueTicks.remove(collectorId);
+    }
+
+    /**
+     * Checks if a collector is scheduled.
+     *
+     * @param collectorId The collector ID
+     * @return true if the collector is scheduled, false otherwise
+     */
+    public synchronized boolean isScheduled(String collectorId) {
+        return dueTicks.containsKey(collectorId);
+    }
+
+    /**
+     * Removes every collector from the schedule.
+     */
+    public synchronized void clear() {
+        dueTicks.clear();
+        for (List<Entry> bucket : buckets) {
+            bucket.clear();
+        }
+    }
+
+    /**
+     * Advances the wheel by one tick and returns the collectors due on it.
+     * Returned collectors are no longer scheduled; the caller is expected to
+     * {@link #reschedule(String, CollectorData)} them after running them.
+     *
+     * @return The IDs of the collectors due on this tick
+     */
+    public synchronized List<String> advance() {
+        currentTick++;
+
+        int index = (int) (currentTick & WHEEL_MASK);
+        List<Entry> bucket = buckets.get(index);
+        if (bucket.isEmpty()) {
+            return List.of();
+        }
+
+        // Swap in a fresh bucket so rescheduling during iteration is safe
+        List<Entry> remaining = new ArrayList<>();
+        buckets.set(index, remaining);
+
+        List<String> due = new ArrayList<>();
+        for (Entry entry : bucket) {
+            Long dueTick = dueTicks.get(entry.collectorId);
+            if (dueTick == null || dueTick != entry.dueTick) {
+                // Unscheduled or moved since this entry was queued
+                continue;
+            }
+
+            if (entry.dueTick > currentTick) {
+                // Due on a later rotation of the wheel
+                remaining.add(entry);
+                continue;
+            }
+
+            dueTicks.remove(entry.collectorId);
+            due.add(entry.collectorId);
+        }
+
+        return due;
+    }
+
+    /**
+     * Gets the current tick of the wheel.
+     *
+     * @return The number of ticks advanced so far
+     */
+    public synchronized long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Gets the number of scheduled collectors.
+     *
+     * @return The number of scheduled collectors
+     */
+    public synchronized int size() {
+        return dueTicks.size();
+    }
+
+    private void enqueue(String collectorId, long dueTick) {
+        dueTicks.put(collectorId, dueTick);
+        buckets.get((int) (dueTick & WHEEL_MASK)).add(new Entry(collectorId, dueTick));
+    }
+
+    /**
+     * A queued run of a collector.
+     */
+    private static final class Entry {
+        private final String collectorId;
+        private final long dueTick;
+
+        private Entry(String collectorId, long dueTick) {
+            this.collectorId = collectorId;
+            this.dueTick = dueTick;
+        }
+    }
+}
@@ -5,280 +5,671 @@ import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
-import org.bukkit.block.BlockState;
-import org.bukkit.block.Container;
-import org.bukkit.entity.Entity;
 import org.bukkit.entity.Item;
+import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.djtmk.chunkcollect.ChunkCollect;
 import org.djtmk.chunkcollect.config.Config;
 import org.djtmk.chunkcollect.data.CollectorData;
+import org.djtmk.chunkcollect.data.MaterialFilter;
+import org.djtmk.chunkcollect.data.OverflowPolicy;
+import org.djtmk.chunkcollect.data.PendingBuffer;
 import org.djtmk.chunkcollect.manager.CollectorManager;
+import org.djtmk.chunkcollect.manager.ContainerCache;
+import org.djtmk.chunkcollect.manager.ContainerCapacity;
+import org.djtmk.chunkcollect.manager.CoverageIndex;
+import org.djtmk.chunkcollect.manager.PendingStore;
+import org.djtmk.chunkcollect.manager.ItemIndex;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Task that collects items in chunks with collectors.
+ * <p>
+ * The task ticks on the main thread, or on Folia on the global region thread.
+ * There each due collector is handed to the thread of the region that owns
+ * its chunk, and a run only touches chunks and containers that region owns.
  */
-public class CollectorTask extends BukkitRunnable {
+public class CollectorTask implements Runnable {
+    // How often tracked items are checked for chunk changes, in ticks
+    private static final int ITEM_SWEEP_INTERVAL = 20;
+
+    // Collectors that can't store anything wait up to 2^this intervals between runs
+    private static final int MAX_BACKOFF_LEVEL = 6;
+
     private final ChunkCollect plugin;
+    private final PlatformScheduler platformScheduler;
     private final CollectorManager collectorManager;
+    private final ItemIndex itemIndex;
     private final Config config;
+    private int ticksSinceSweep;
+
+    // Items of the chunks read on the current tick, by world and chunk key; unused on Folia
+    private final Map<UUID, Map<Long, List<Item>>> scannedChunks = new HashMap<>();
+
+    // Due collectors that did not fit into a tick's time budget, resumed first on the next tick
+    private final Deque<String> backlog = new ArrayDeque<>();
+
+    // Collectors whose containers are all full, until one signals space
+    private final Backoff backoff = new Backoff(MAX_BACKOFF_LEVEL);
+
+    // Observed drop rates, used to adapt collection intervals
+    private final Map<String, DropRate> dropRates = new ConcurrentHashMap<>();
+
+    // Budget statistics
+    private final AtomicLong deferredCollectors = new AtomicLong();
+    private final AtomicLong deferredItems = new AtomicLong();
+    private final AtomicLong overBudgetTicks = new AtomicLong();
 
-    // Cache of items that couldn't be stored
-    private final Map<String, List<ItemStack>> pendingItems = new HashMap<>();
+    // Overflow statistics
+    private final AtomicLong droppedItems = new AtomicLong();
+    private final AtomicLong voidedItems = new AtomicLong();
 
     /**
      * Creates a new collector task.
      *
      * @param plugin The plugin instance
+     * @param platformScheduler The platform scheduler
      * @param collectorManager The collector manager
+     * @param itemIndex The item index
      * @param config The plugin configuration
      */
-    public CollectorTask(ChunkCollect plugin, CollectorManager collectorManager, Config config) {
+    public CollectorTask(ChunkCollect plugin, PlatformScheduler platformScheduler, CollectorManager collectorManager,
+                         ItemIndex itemIndex, Config config) {
         this.plugin = plugin;
+        this.platformScheduler = platformScheduler;
         this.collectorManager = collectorManager;
+        this.itemIndex = itemIndex;
         this.config = config;
     }
 
     @Override
     public void run() {
-        // Process all collectors
-        for (Map.Entry<String, CollectorData> entry : collectorManager.getAllCollectors().entrySet()) {
-            String collectorId = entry.getKey();
-            CollectorData collector = entry.getValue();
+        boolean regionized = platformScheduler.isRegionized();
 
-            // Skip collectors in unloaded chunks
-            if (!collector.getChunk().isLoaded()) {
-                continue;
+        // Refile items that drifted into another chunk; on Folia items are only refiled when their chunk is read
+        if (!regionized && ++ticksSinceSweep >= ITEM_SWEEP_INTERVAL) {
+            ticksSinceSweep = 0;
+            itemIndex.sweep();
+        }
+
+        CollectionScheduler scheduler = collectorManager.getScheduler();
+        scannedChunks.clear();
+
+        // Wake backed off collectors whose containers may have room again; they resolve their
+        // containers afresh, which also raises the space signal that retries their pending items
+        ContainerCache containerCache = collectorManager.getContainerCache();
+        for (String collectorId : containerCache.takeWakeups()) {
+            if (backoff.clear(collectorId)) {
+                containerCache.invalidate(collectorId);
+                scheduler.wake(collectorId);
             }
+        }
 
-            // Calculate collection interval based on speed level
-            int interval = config.getDefaultCollectionInterval() - (collector.getSpeedLevel() * 2);
-            if (interval < 1) {
-                interval = 1;
+        // On Folia every due collector runs on its own region's thread
+        if (regionized) {
+            for (String collectorId : scheduler.advance()) {
+                dispatch(collectorId, 0L);
             }
+            return;
+        }
+
+        // Queue the collectors due on this tick behind the ones left over from earlier ticks
+        backlog.addAll(scheduler.advance());
+        if (backlog.isEmpty()) {
+            return;
+        }
+
+        double maxMillis = config.getMaxMillisPerTick();
+        long deadline = maxMillis > 0 ? System.nanoTime() + (long) (maxMillis * 1_000_000L) : Long.MAX_VALUE;
+        boolean first = true;
+
+        while (!backlog.isEmpty()) {
+            // Always make progress on at least one collector per tick
+            if (!first && System.nanoTime() >= deadline) {
+                deferredCollectors.addAndGet(backlog.size());
+                overBudgetTicks.incrementAndGet();
+                return;
+            }
+            first = false;
 
-            // Only collect items every N ticks based on the interval
-            if (plugin.getServer().getCurrentTick() % interval != 0) {
+            String collectorId = backlog.poll();
+            CollectorData collector = getRunnableCollector(collectorId);
+            if (collector == null) {
                 continue;
             }
 
-            // Collect items in the chunk
-            collectItems(collectorId, collector);
+            CollectionRun collectionRun = new CollectionRun(scannedChunks);
+            if (!collectItems(collectorId, collector, deadline, collectionRun)) {
+                // Out of time partway through, resume this collector first next tick
+                finishSlice(collectorId, collectionRun);
+                backlog.addFirst(collectorId);
+                deferredCollectors.addAndGet(backlog.size());
+                overBudgetTicks.incrementAndGet();
+                return;
+            }
+
+            finishRun(collectorId, collector, collectionRun);
         }
     }
 
     /**
-     * Collects items in a chunk.
+     * Hands a due collector to the thread of the region that owns its chunk.
+     *
+     * @param collectorId The collector ID
+     * @param delay The delay in ticks, 0 to run on the region's next tick
+     */
+    private void dispatch(String collectorId, long delay) {
+        CollectorData collector = collectorManager.getCollector(collectorId);
+        if (collector == null) {
+            forget(collectorId);
+            return;
+        }
+
+        World world = collector.getWorld();
+        if (world == null) {
+            forget(collectorId);
+            return;
+        }
+
+        platformScheduler.runAtChunk(world, collector.getChunkX(), collector.getChunkZ(), delay,
+                () -> runInRegion(collectorId));
+    }
+
+    /**
+     * Runs a collector on its region's thread, with its own time budget. A run
+     * that runs out of time resumes on the region's next tick.
      *
      * @param collectorId The collector ID
-     * @param collector The collector data
      */
-    private void collectItems(String collectorId, CollectorData collector) {
-        Chunk chunk = collector.getChunk();
-        World world = chunk.getWorld();
+    private void runInRegion(String collectorId) {
+        CollectorData collector = getRunnableCollector(collectorId);
+        if (collector == null) {
+            return;
+        }
 
-        // Calculate collection range based on range level
-        int range = collector.getRangeLevel();
+        double maxMillis = config.getMaxMillisPerTick();
+        long deadline = maxMillis > 0 ? System.nanoTime() + (long) (maxMillis * 1_000_000L) : Long.MAX_VALUE;
 
-        // Get all items in the chunk (or in range if range level > 0)
-        List<Item> items = new ArrayList<>();
-        if (range > 0) {
-            // Get items in a radius around the collector
-            Location center = collector.getBlockLocation();
-            int chunkRadius = range / 16 + 1; // Convert blocks to chunks
-
-            for (Entity entity : world.getNearbyEntities(center, range, range, range)) {
-                if (entity instanceof Item) {
-                    items.add((Item) entity);
-                }
+        // Regions run in parallel, so each run reads chunks into its own memo
+        CollectionRun collectionRun = new CollectionRun(new HashMap<>());
+        if (!collectItems(collectorId, collector, deadline, collectionRun)) {
+            finishSlice(collectorId, collectionRun);
+            deferredCollectors.incrementAndGet();
+            overBudgetTicks.incrementAndGet();
+            dispatch(collectorId, 1L);
+            return;
+        }
+
+        finishRun(collectorId, collector, collectionRun);
+    }
+
+    /**
+     * Gets a due collector if it should still run.
+     *
+     * @param collectorId The collector ID
+     * @return The collector data, or null if the collector was removed, rescheduled or unloaded
+     */
+    private CollectorData getRunnableCollector(String collectorId) {
+        CollectorData collector = collectorManager.getCollector(collectorId);
+        if (collector == null) {
+            // Removed since it was scheduled
+            forget(collectorId);
+            return null;
+        }
+
+        // Reactivated by a chunk load while it was waiting, it runs on its new schedule
+        if (collectorManager.getScheduler().isScheduled(collectorId)) {
+            return null;
+        }
+
+        // Only collectors in loaded chunks are scheduled; drop any that slipped through
+        if (!collector.isChunkLoaded()) {
+            return null;
+        }
+
+        return collector;
+    }
+
+    /**
+     * Keeps the items of a run that ran out of time, so they count towards
+     * the collector's drop rate when the run finishes.
+     *
+     * @param collectorId The collector ID
+     * @param collectionRun The state of the slice that ran out of time
+     */
+    private void finishSlice(String collectorId, CollectionRun collectionRun) {
+        if (config.isAdaptiveIntervalEnabled() && collectionRun.collectedItems > 0) {
+            dropRates.computeIfAbsent(collectorId, k -> new DropRate()).recordSlice(collectionRun.collectedItems);
+        }
+    }
+
+    /**
+     * Schedules a collector's next run after it finished.
+     *
+     * @param collectorId The collector ID
+     * @param collector The collector data
+     * @param collectionRun The state of the finished run
+     */
+    private void finishRun(String collectorId, CollectorData collector, CollectionRun collectionRun) {
+        CollectionScheduler scheduler = collectorManager.getScheduler();
+
+        // Speed level sets the shortest interval; adaptive intervals stretch it for idle collectors
+        int interval = scheduler.getInterval(collector);
+        if (config.isAdaptiveIntervalEnabled()) {
+            DropRate dropRate = dropRates.computeIfAbsent(collectorId, k -> new DropRate());
+            dropRate.record(collectionRun.collectedItems, scheduler.getCurrentTick(), config.getAdaptiveSmoothing());
+            interval = dropRate.getInterval(interval, config.getAdaptiveMaxInterval(), config.getAdaptiveTargetItems());
+        }
+
+        if (collectionRun.storageBlocked) {
+            // Nothing could be stored, wait exponentially longer until space appears
+            int level = backoff.block(collectorId);
+            if (backoff.isMaxLevel(level)) {
+                // Space may have appeared without an event, so resolve the containers again on the next run
+                collectorManager.getContainerCache().invalidate(collectorId);
             }
+            scheduler.reschedule(collectorId, scheduler.getInterval(collector) << level);
         } else {
-            // Get items only in this chunk
-            for (Entity entity : chunk.getEntities()) {
-                if (entity instanceof Item) {
-                    items.add((Item) entity);
+            backoff.clear(collectorId);
+            scheduler.reschedule(collectorId, interval);
+        }
+    }
+
+    /**
+     * Drops the state kept for a removed collector.
+     *
+     * @param collectorId The collector ID
+     */
+    private void forget(String collectorId) {
+        backoff.clear(collectorId);
+        dropRates.remove(collectorId);
+    }
+
+    /**
+     * Gets the number of times a due collector was carried over to a later tick.
+     *
+     * @return The number of deferred collector runs
+     */
+    public long getDeferredCollectors() {
+        return deferredCollectors.get();
+    }
+
+    /**
+     * Gets the number of items left in the world because a tick ran out of time.
+     *
+     * @return The number of deferred items
+     */
+    public long getDeferredItems() {
+        return deferredItems.get();
+    }
+
+    /**
+     * Gets the number of ticks that ran out of time.
+     *
+     * @return The number of ticks that exceeded the budget
+     */
+    public long getOverBudgetTicks() {
+        return overBudgetTicks.get();
+    }
+
+    /**
+     * Gets the number of overflowing items dropped at collectors.
+     *
+     * @return The number of dropped items
+     */
+    public long getDroppedItems() {
+        return droppedItems.get();
+    }
+
+    /**
+     * Gets the number of overflowing items that were deleted.
+     *
+     * @return The number of voided items
+     */
+    public long getVoidedItems() {
+        return voidedItems.get();
+    }
+
+    /**
+     * Gets the number of collectors backing off because their containers are full.
+     *
+     * @return The number of backed off collectors
+     */
+    public int getBackedOffCount() {
+        return backoff.size();
+    }
+
+    /**
+     * Gets the number of collectors waiting to resume on the next tick.
+     *
+     * @return The backlog size
+     */
+    public int getBacklogSize() {
+        return backlog.size();
+    }
+
+    /**
+     * Collects items in a chunk. Stops early when the deadline passes; the
+     * items that were not processed stay in the world for the next run.
+     * Pending items are only retried after the collector's containers signal
+     * that they may have free space.
+     *
+     * @param collectorId The collector ID
+     * @param collector The collector data
+     * @param deadline The {@link System#nanoTime()} at which to stop
+     * @param collectionRun The state of this run
+     * @return true if the collector finished, false if it ran out of time
+     */
+    private boolean collectItems(String collectorId, CollectorData collector, long deadline, CollectionRun collectionRun) {
+        // On Folia, containers in another region can't be touched; leave the items in the world
+        if (!ownsStorage(collector)) {
+            return true;
+        }
+
+        ContainerCache containerCache = collectorManager.getContainerCache();
+        PendingStore pendingStore = collectorManager.getPendingStore();
+        PendingBuffer pending = pendingStore.get(collectorId);
+        List<Inventory> linkedContainers = null;
+
+        // Pick up the items, merging similar stacks
+        ItemBatch batch = new ItemBatch();
+
+        // Items that were already pending go first, in the same bulk inserts. The containers are
+        // resolved before anything else: a buffer reloaded after a restart, or one whose entry was
+        // dropped with its chunk, has nothing cached, and resolving is what raises the space signal
+        if (!pending.isEmpty()) {
+            linkedContainers = containerCache.getContainers(collectorId, collector);
+            if (!linkedContainers.isEmpty() && containerCache.consumeSpaceSignal(collectorId)) {
+                for (PendingBuffer.Entry entry : pending.takeAll()) {
+                    batch.add(entry.getItem(), entry.getAmount());
                 }
+                pendingStore.markDirty(collectorId);
             }
         }
 
-        // No items to collect
-        if (items.isEmpty()) {
-            return;
-        }
+        // A full buffer pauses pickup unless overflow is voided, so items aren't dropped and picked up again
+        boolean paused = isPickupPaused(collectorId);
+        List<Item> items = paused ? new ArrayList<>() : gatherItems(collectorId, collector, collectionRun);
 
-        // Get pending items for this collector
-        List<ItemStack> pending = pendingItems.computeIfAbsent(collectorId, k -> new ArrayList<>());
+        // Nothing to collect or store; a paused collector waits for space
+        if (items.isEmpty() && batch.isEmpty()) {
+            collectionRun.storageBlocked = paused;
+            return true;
+        }
 
         // Get linked chests
-        List<Container> linkedContainers = getLinkedContainers(collector);
+        if (linkedContainers == null) {
+            linkedContainers = containerCache.getContainers(collectorId, collector);
+        }
+
+        // Filters are compiled, so each check is a single bit lookup
+        MaterialFilter filter = config.isFiltersEnabled() ? collector.getFilter() : MaterialFilter.NONE;
 
-        // Process items
-        for (Item item : items) {
+        boolean finished = true;
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0 && System.nanoTime() >= deadline) {
+                deferredItems.addAndGet(items.size() - i);
+                finished = false;
+                break;
+            }
+
+            Item item = items.get(i);
             ItemStack stack = item.getItemStack();
 
             // Check if the item is in the filter list
-            if (!isItemAllowed(collector, stack.getType())) {
+            if (!filter.allows(stack.getType())) {
                 continue;
             }
 
-            // Try to store the item in linked chests
-            boolean stored = false;
-            if (!linkedContainers.isEmpty()) {
-                // Try each linked chest
-                for (Container container : linkedContainers) {
-                    HashMap<Integer, ItemStack> remaining = container.getInventory().addItem(stack);
-
-                    if (remaining.isEmpty()) {
-                        // Item was fully stored
-                        stored = true;
-                        break;
-                    } else {
-                        // Update the stack to the remaining amount
-                        stack = remaining.values().iterator().next();
-                    }
-                }
-
-                // If the item wasn't fully stored, add the remainder to pending
-                if (!stored && stack != null && stack.getAmount() > 0) {
-                    pending.add(stack);
-                }
-            } else {
-                // No linked chests, add to pending
-                pending.add(stack);
-            }
+            batch.add(stack);
+            collectionRun.collectedItems += stack.getAmount();
 
             // Remove the item from the world
             item.remove();
+            itemIndex.untrack(item);
         }
 
-        // Try to process pending items if we have linked chests
-        if (!linkedContainers.isEmpty() && !pending.isEmpty()) {
-            List<ItemStack> stillPending = new ArrayList<>();
+        // Skip containers that are known to be full and back off if all of them are
+        List<ContainerCapacity> capacities = containerCache.getCapacities(collectorId);
+        collectionRun.storageBlocked = !batch.isEmpty() && !batch.fitsAny(capacities);
+
+        // Store everything with one insert per item type, keeping what doesn't fit. STOP keeps all of
+        // it, since these items already left the world; the full buffer then pauses the next pickup
+        OverflowPolicy policy = config.getOverflowPolicy();
+        long capacity = config.getMaxPendingItems();
+        for (ItemStack leftover : batch.insertInto(linkedContainers, capacities)) {
+            long accepted = pending.add(leftover, leftover.getAmount(), policy == OverflowPolicy.STOP ? Long.MAX_VALUE : capacity);
+            if (accepted > 0) {
+                pendingStore.markDirty(collectorId);
+            }
+            int overflow = (int) (leftover.getAmount() - accepted);
+            if (overflow > 0) {
+                handleOverflow(collector, leftover, overflow, policy);
+            }
+        }
+
+        return finished;
+    }
 
-            for (ItemStack stack : pending) {
-                boolean stored = false;
+    /**
+     * Gathers the items a collector takes on this run. Each covered chunk is
+     * read from the item index once per tick, however many collectors cover
+     * it. Where collection areas overlap, every item goes to exactly one
+     * collector; see {@link #findClaimant}.
+     *
+     * @param collectorId The collector ID
+     * @param collector The collector data
+     * @param collectionRun The state of this run
+     * @return The items in the collector's area that it claims
+     */
+    private List<Item> gatherItems(String collectorId, CollectorData collector, CollectionRun collectionRun) {
+        World world = collector.getWorld();
+        CoverageIndex coverageIndex = collectorManager.getCoverageIndex();
 
-                // Try each linked chest
-                for (Container container : linkedContainers) {
-                    HashMap<Integer, ItemStack> remaining = container.getInventory().addItem(stack);
+        // Range level 0 covers the collector's own chunk, higher levels a cube around it
+        int range = collector.getRangeLevel();
+        int minChunkX = (collector.getBlockX() - range) >> 4;
+        int maxChunkX = (collector.getBlockX() + range) >> 4;
+        int minChunkZ = (collector.getBlockZ() - range) >> 4;
+        int maxChunkZ = (collector.getBlockZ() + range) >> 4;
 
-                    if (remaining.isEmpty()) {
-                        // Item was fully stored
-                        stored = true;
-                        break;
-                    } else {
-                        // Update the stack to the remaining amount
-                        stack = remaining.values().iterator().next();
-                    }
+        List<Item> items = new ArrayList<>();
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                // On Folia, chunks of other regions are collected by the collectors running there
+                if (!platformScheduler.isOwnedByCurrentThread(world, chunkX, chunkZ)) {
+                    continue;
                 }
 
-                // If the item wasn't fully stored, add the remainder to still pending
-                if (!stored && stack != null && stack.getAmount() > 0) {
-                    stillPending.add(stack);
+                List<String> claimants = coverageIndex.getCollectors(world, chunkX, chunkZ);
+
+                for (Item item : getChunkItems(collectionRun, world, chunkX, chunkZ)) {
+                    // Taken by another collector earlier on this tick
+                    if (!item.isValid()) {
+                        continue;
+                    }
+
+                    Location location = item.getLocation();
+                    if (!CoverageIndex.covers(collector, location.getX(), location.getY(), location.getZ())) {
+                        continue;
+                    }
+
+                    if (claimants.size() > 1 && !collectorId.equals(findClaimant(claimants, item, location))) {
+                        continue;
+                    }
+
+                    items.add(item);
                 }
             }
-
-            // Update pending items
-            pending.clear();
-            pending.addAll(stillPending);
         }
 
-        // Update pending items map
-        pendingItems.put(collectorId, pending);
+        return items;
     }
 
     /**
-     * Gets all linked containers for a collector.
+     * Gets the tracked items in a chunk, reading the item index at most once per tick.
      *
-     * @param collector The collector data
-     * @return A list of linked containers
+     * @param collectionRun The state of this run
+     * @param world The world
+     * @param chunkX The chunk X coordinate
+     * @param chunkZ The chunk Z coordinate
+     * @return The items in the chunk
      */
-    private List<Container> getLinkedContainers(CollectorData collector) {
-        List<Container> containers = new ArrayList<>();
+    private List<Item> getChunkItems(CollectionRun collectionRun, World world, int chunkX, int chunkZ) {
+        return collectionRun.scannedChunks.computeIfAbsent(world.getUID(), k -> new HashMap<>())
+                .computeIfAbsent(Chunk.getChunkKey(chunkX, chunkZ), k -> {
+                    List<Item> items = new ArrayList<>();
+                    itemIndex.getItems(world, chunkX, chunkZ, items);
+                    return items;
+                });
+    }
 
-        // Get linked chest locations
-        List<Location> linkedChests = collector.getLinkedChests();
+    /**
+     * Decides which of the collectors covering a chunk takes an item. Only
+     * active collectors whose area contains the item, whose filter allows it
+     * and whose pickup isn't paused are eligible. Collectors backing off
+     * because their containers are full only take the item if no other
+     * collector can. The nearest one wins, and ties go to the lowest
+     * collector ID, so the choice is the same whichever collector runs first.
+     *
+     * @param candidates The IDs of the collectors covering the item's chunk
+     * @param item The item
+     * @param location The item's location
+     * @return The ID of the collector that takes the item, or null if none can
+     */
+    private String findClaimant(List<String> candidates, Item item, Location location) {
+        boolean filtersEnabled = config.isFiltersEnabled();
+        Material type = item.getItemStack().getType();
+
+        String claimant = null;
+        boolean claimantBlocked = true;
+        double claimantDistance = Double.MAX_VALUE;
+        for (String candidateId : candidates) {
+            CollectorData candidate = collectorManager.getCollector(candidateId);
+            if (candidate == null) {
+                continue;
+            }
 
-        // Convert locations to containers
-        for (Location location : linkedChests) {
-            Block block = location.getBlock();
-            BlockState state = block.getState();
+            // Collectors in unloaded chunks are inactive
+            if (!candidate.isChunkLoaded()) {
+                continue;
+            }
 
-            if (state instanceof Container) {
-                containers.add((Container) state);
+            if (!CoverageIndex.covers(candidate, location.getX(), location.getY(), location.getZ())
+                    || (filtersEnabled && !candidate.getFilter().allows(type))
+                    || isPickupPaused(candidateId)) {
+                continue;
             }
-        }
 
-        // If no linked chests, try to find a nearby container
-        if (containers.isEmpty()) {
-            Container nearestContainer = findNearestContainer(collector);
-            if (nearestContainer != null) {
-                containers.add(nearestContainer);
+            double dx = location.getX() - (candidate.getBlockX() + 0.5);
+            double dy = location.getY() - (candidate.getBlockY() + 0.5);
+            double dz = location.getZ() - (candidate.getBlockZ() + 0.5);
+            double distance = dx * dx + dy * dy + dz * dz;
+
+            // Items left with a backed off collector would only pile up in its pending buffer
+            boolean blocked = backoff.isBlocked(candidateId);
+            if (blocked && !claimantBlocked) {
+                continue;
+            }
+
+            if ((!blocked && claimantBlocked) || distance < claimantDistance
+                    || (distance == claimantDistance && candidateId.compareTo(claimant) < 0)) {
+                claimant = candidateId;
+                claimantBlocked = blocked;
+                claimantDistance = distance;
             }
         }
 
-        return containers;
+        return claimant;
     }
 
     /**
-     * Finds the nearest container to a collector.
+     * Checks if a collector stopped picking up items because its pending
+     * buffer is full. Voiding collectors never pause.
      *
-     * @param collector The collector data
-     * @return The nearest container, or null if none is found
+     * @param collectorId The collector ID
+     * @return true if pickup is paused, false otherwise
      */
-    private Container findNearestContainer(CollectorData collector) {
-        Location location = collector.getBlockLocation();
-        World world = location.getWorld();
-        int range = config.getDefaultStorageRange();
+    private boolean isPickupPaused(String collectorId) {
+        return config.getOverflowPolicy() != OverflowPolicy.VOID
+                && collectorManager.getPendingStore().getTotal(collectorId) >= config.getMaxPendingItems();
+    }
 
-        // Check nearby blocks for containers
-        for (int x = -range; x <= range; x++) {
-            for (int y = -range; y <= range; y++) {
-                for (int z = -range; z <= range; z++) {
-                    Block block = world.getBlockAt(
-                            location.getBlockX() + x,
-                            location.getBlockY() + y,
-                            location.getBlockZ() + z
-                    );
-
-                    BlockState state = block.getState();
-                    if (state instanceof Container) {
-                        return (Container) state;
-                    }
-                }
-            }
+    /**
+     * Handles items that don't fit into a collector's pending buffer.
+     *
+     * @param collector The collector data
+     * @param stack The overflowing item
+     * @param amount The overflowing amount
+     * @param policy The overflow policy
+     */
+    private void handleOverflow(CollectorData collector, ItemStack stack, int amount, OverflowPolicy policy) {
+        if (policy == OverflowPolicy.DROP) {
+            Location location = collector.getBlockLocation();
+            location.getWorld().dropItem(location.clone().add(0.5, 1.0, 0.5), stack.asQuantity(amount));
+            droppedItems.addAndGet(amount);
+        } else {
+            voidedItems.addAndGet(amount);
         }
-
-        return null;
     }
 
     /**
-     * Checks if an item is allowed by the collector's filter.
+     * Checks if the current thread may touch a collector's containers: its
+     * linked chests, or the chunks searched for a nearby container if it has
+     * none. Always true outside Folia.
      *
      * @param collector The collector data
-     * @param material The material to check
-     * @return true if the item is allowed, false otherwise
+     * @return true if the containers are owned by the current thread, false otherwise
      */
-    private boolean isItemAllowed(CollectorData collector, Material material) {
-        // If filters are disabled, allow all items
-        if (!config.isFiltersEnabled()) {
+    private boolean ownsStorage(CollectorData collector) {
+        if (!platformScheduler.isRegionized()) {
             return true;
         }
 
-        List<Material> filterList = collector.getFilterList();
-
-        // If the filter list is empty, allow all items
-        if (filterList.isEmpty()) {
+        World world = collector.getWorld();
+        long[] linkedChests = collector.getLinkedChestKeys();
+        if (linkedChests.length > 0) {
+            for (long chest : linkedChests) {
+                if (!platformScheduler.isOwnedByCurrentThread(world, Block.getBlockKeyX(chest) >> 4, Block.getBlockKeyZ(chest) >> 4)) {
+                    return false;
+                }
+            }
             return true;
         }
 
-        // Check if the material is in the filter list
-        return filterList.contains(material);
+        int range = config.getDefaultStorageRange();
+        for (int chunkX = (collector.getBlockX() - range) >> 4; chunkX <= (collector.getBlockX() + range) >> 4; chunkX++) {
+            for (int chunkZ = (collector.getBlockZ() - range) >> 4; chunkZ <= (collector.getBlockZ() + range) >> 4; chunkZ++) {
+                if (!platformScheduler.isOwnedByCurrentThread(world, chunkX, chunkZ)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The state of a single collector run.
+     */
+    private static final class CollectionRun {
+        // Items of the chunks already read, by world and chunk key
+        private final Map<UUID, Map<Long, List<Item>>> scannedChunks;
+
+        // Whether the run could not store anything, and how many items it picked up
+        private boolean storageBlocked;
+        private long collectedItems;
+
+        private CollectionRun(Map<UUID, Map<Long, List<Item>>> scannedChunks) {
+            this.scannedChunks = scannedChunks;
+        }
     }
 }
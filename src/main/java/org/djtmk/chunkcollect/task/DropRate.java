@@ -0,0 +1,67 @@
+package org.djtmk.chunkcollect.task;
+
+/**
+ * Moving average of how many items a collector picks up per tick, used to
+ * stretch the interval of idle collectors and shrink that of busy ones.
+ */
+public class DropRate {
+    private double itemsPerTick;
+    private boolean sampled;
+    private long lastRunTick = -1;
+    // Items picked up by the slices of a run that ran out of time, counted with the run
+    private long sliceItems;
+
+    /**
+     * Records a slice of a run that ran out of time and resumes on a later
+     * tick. Each slice picks up its items in a run state of its own, so the
+     * items are kept here until the run finishes.
+     *
+     * @param items The number of items picked up on the slice
+     */
+    public void recordSlice(long items) {
+        sliceItems += items;
+    }
+
+    /**
+     * Records a finished run of the collector.
+     *
+     * @param items The number of items picked up on the last slice of the run
+     * @param currentTick The current scheduler tick
+     * @param smoothing The weight of this run in the average, between 0 and 1
+     */
+    public void record(long items, long currentTick, double smoothing) {
+        items += sliceItems;
+        sliceItems = 0;
+        if (lastRunTick >= 0 && currentTick > lastRunTick) {
+            double sample = (double) items / (currentTick - lastRunTick);
+            itemsPerTick = sampled ? itemsPerTick + smoothing * (sample - itemsPerTick) : sample;
+            sampled = true;
+        }
+        lastRunTick = currentTick;
+    }
+
+    /**
+     * Gets the interval at which the collector would pick up about the target
+     * number of items per run at its current drop rate.
+     *
+     * @param minInterval The shortest interval, from the collector's speed level
+     * @param maxInterval The longest interval
+     * @param targetItems The number of items to aim for per run
+     * @return The interval in ticks, between the minimum and the maximum
+     */
+    public int getInterval(int minInterval, int maxInterval, double targetItems) {
+        maxInterval = Math.max(maxInterval, minInterval);
+
+        // Run at full speed until there is a rate to go by
+        if (!sampled) {
+            return minInterval;
+        }
+
+        if (itemsPerTick <= 0) {
+            return maxInterval;
+        }
+
+        double interval = Math.ceil(targetItems / itemsPerTick);
+        return (int) Math.max(minInterval, Math.min(maxInterval, interval));
+    }
+}
@@ -0,0 +1,153 @@
+package org.djtmk.chunkcollect.task;
+
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.djtmk.chunkcollect.manager.ContainerCapacity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Groups similar item stacks so each distinct item type is inserted into a
+ * container with one bulk call instead of one call per stack.
+ */
+public class ItemBatch {
+    private final List<Group> groups = new ArrayList<>();
+
+    /**
+     * Adds a stack to the batch, merging it with similar stacks.
+     *
+     * @param stack The item stack
+     */
+    public void add(ItemStack stack) {
+        add(stack, stack.getAmount());
+    }
+
+    /**
+     * Adds an amount of an item to the batch, merging it with similar stacks.
+     *
+     * @param stack The item, its own amount is ignored
+     * @param amount The amount to add
+     */
+    public void add(ItemStack stack, long amount) {
+        if (amount <= 0) {
+            return;
+        }
+
+        for (Group group : groups) {
+            if (group.prototype.isSimilar(stack)) {
+                group.amount += amount;
+                return;
+            }
+        }
+
+        groups.add(new Group(stack.asOne(), amount));
+    }
+
+    /**
+     * Checks if the batch is empty.
+     *
+     * @return true if the batch holds no items, false otherwise
+     */
+    public boolean isEmpty() {
+        return groups.isEmpty();
+    }
+
+    /**
+     * Removes every item from the batch.
+     */
+    public void clear() {
+        groups.clear();
+    }
+
+    /**
+     * Checks if at least one container can take some of the batch.
+     *
+     * @param capacities The capacity models of the containers
+     * @return true if some item fits somewhere, false if every container is full for every item
+     */
+    public boolean fitsAny(List<ContainerCapacity> capacities) {
+        for (Group group : groups) {
+            for (ContainerCapacity capacity : capacities) {
+                if (capacity.accepts(group.prototype)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Inserts the batch into a list of inventories, filling them in order.
+     * Each inventory receives at most one bulk insert per distinct item type,
+     * and none if its capacity model says the type doesn't fit. The batch is
+     * cleared afterwards.
+     *
+     * @param inventories The inventories to insert into
+     * @param capacities The capacity models of the inventories, in the same order
+     * @return The stacks that did not fit
+     */
+    public List<ItemStack> insertInto(List<Inventory> inventories, List<ContainerCapacity> capacities) {
+        List<ItemStack> leftovers = new ArrayList<>();
+
+        for (Group group : groups) {
+            ItemStack[] stacks = group.toStacks();
+
+            for (int i = 0; i < inventories.size(); i++) {
+                ContainerCapacity capacity = capacities.get(i);
+                if (!capacity.accepts(group.prototype)) {
+                    continue;
+                }
+
+                HashMap<Integer, ItemStack> remaining = inventories.get(i).addItem(stacks);
+                capacity.invalidate();
+                if (remaining.isEmpty()) {
+                    stacks = null;
+                    break;
+                }
+                stacks = remaining.values().toArray(new ItemStack[0]);
+            }
+
+            if (stacks != null) {
+                for (ItemStack stack : stacks) {
+                    leftovers.add(stack);
+                }
+            }
+        }
+
+        groups.clear();
+        return leftovers;
+    }
+
+    /**
+     * All items of one type in the batch.
+     */
+    private static final class Group {
+        private final ItemStack prototype;
+        private long amount;
+
+        private Group(ItemStack prototype, long amount) {
+            this.prototype = prototype;
+            this.amount = amount;
+        }
+
+        /**
+         * Splits the amount into stacks of at most the maximum stack size.
+         */
+        private ItemStack[] toStacks() {
+            int maxStackSize = Math.max(prototype.getMaxStackSize(), 1);
+            int count = (int) ((amount + maxStackSize - 1) / maxStackSize);
+            ItemStack[] stacks = new ItemStack[count];
+
+            long left = amount;
+            for (int i = 0; i < count; i++) {
+                int size = (int) Math.min(left, maxStackSize);
+                stacks[i] = prototype.asQuantity(size);
+                left -= size;
+            }
+
+            return stacks;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.djtmk.chunkcollect.task;
+
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Runs plugin work on the right thread for the server platform.
+ * <p>
+ * On Paper every task runs on the main thread. On Folia global work runs on
+ * the global region thread and work that touches a chunk runs on the thread
+ * of the region that owns it.
+ */
+public interface PlatformScheduler {
+
+    /**
+     * Creates the scheduler for the running server.
+     *
+     * @param plugin The plugin instance
+     * @return A Folia scheduler if the server is regionized, a Bukkit scheduler otherwise
+     */
+    static PlatformScheduler create(Plugin plugin) {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return new FoliaPlatformScheduler(plugin);
+        } catch (ClassNotFoundException e) {
+            return new BukkitPlatformScheduler(plugin);
+        }
+    }
+
+    /**
+     * Checks if work is split over region threads.
+     *
+     * @return true on Folia, false otherwise
+     */
+    boolean isRegionized();
+
+    /**
+     * Runs a task on the global thread on the next tick.
+     *
+     * @param task The task
+     */
+    void runGlobal(Runnable task);
+
+    /**
+     * Runs a task on the global thread repeatedly.
+     *
+     * @param task The task
+     * @param delay The delay before the first run, in ticks
+     * @param period The period between runs, in ticks
+     * @return A handle to cancel the task
+     */
+    Task runGlobalTimer(Runnable task, long delay, long period);
+
+    /**
+     * Runs a task on the thread that owns a chunk.
+     *
+     * @param world The world
+     * @param chunkX The chunk X coordinate
+     * @param chunkZ The chunk Z coordinate
+     * @param delay The delay in ticks, 0 to run on the next tick
+     * @param task The task
+     */
+    void runAtChunk(World world, int chunkX, int chunkZ, long delay, Runnable task);
+
+    /**
+     * Checks if the current thread may touch a chunk.
+     *
+     * @param world The world
+     * @param chunkX The chunk X coordinate
+     * @param chunkZ The chunk Z coordinate
+     * @return true if the chunk is owned by the current thread, false otherwise
+     */
+    boolean isOwnedByCurrentThread(World world, int chunkX, int chunkZ);
+
+    /**
+     * A scheduled repeating task.
+     */
+    interface Task {
+
+        /**
+         * Stops the task.
+         */
+        void cancel();
+    }
+}
@@ -0,0 +1,54 @@
+package org.djtmk.chunkcollect;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.World;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A mocked server for tests, so code that looks worlds up through
+ * {@link Bukkit} finds the worlds a test created.
+ */
+public final class TestServer {
+    private static final Map<UUID, World> worlds = new ConcurrentHashMap<>();
+
+    private TestServer() {
+    }
+
+    /**
+     * Installs the mocked server, once per test run.
+     */
+    public static synchronized void install() {
+        if (Bukkit.getServer() != null) {
+            return;
+        }
+
+        Server server = mock(Server.class);
+        when(server.getLogger()).thenReturn(Logger.getLogger("ChunkCollectTest"));
+        when(server.getWorld(any(UUID.class))).thenAnswer(invocation -> worlds.get(invocation.getArgument(0)));
+        Bukkit.setServer(server);
+    }
+
+    /**
+     * Creates a loaded world.
+     *
+     * @param name The world name
+     * @return The mocked world
+     */
+    public static World createWorld(String name) {
+        World world = mock(World.class);
+        UUID worldId = UUID.randomUUID();
+        when(world.getUID()).thenReturn(worldId);
+        when(world.getName()).thenReturn(name);
+        worlds.put(worldId, world);
+        return world;
+    }
+}
@@ -0,0 +1,47 @@
+package org.djtmk.chunkcollect.data;
+
+import org.bukkit.Location;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * The field layout of {@link CollectorData} before its state was packed into
+ * primitives, kept only so {@link CollectorMemoryTest} can compare the two.
+ */
+final class LegacyCollectorData {
+    private final String id;
+    private UUID owner;
+    private Location blockLocation;
+    private UUID worldId;
+    private int chunkX;
+    private int chunkZ;
+    private int speedLevel;
+    private int rangeLevel;
+    private MaterialFilter filter;
+    private List<Location> linkedChests;
+    private int maxLinkedChests;
+    private Consumer<LegacyCollectorData> changeListener;
+
+    LegacyCollectorData(String id, UUID owner, Location blockLocation) {
+        this.id = id;
+        this.owner = owner;
+        this.blockLocation = blockLocation;
+        this.worldId = blockLocation.getWorld().getUID();
+        this.chunkX = blockLocation.getBlockX() >> 4;
+        this.chunkZ = blockLocation.getBlockZ() >> 4;
+        this.filter = MaterialFilter.NONE;
+        this.linkedChests = new ArrayList<>();
+        this.maxLinkedChests = 1;
+    }
+
+    void addLinkedChest(Location chestLocation) {
+        linkedChests.add(chestLocation);
+    }
+
+    void setChangeListener(Consumer<LegacyCollectorData> changeListener) {
+        this.changeListener = changeListener;
+    }
+}
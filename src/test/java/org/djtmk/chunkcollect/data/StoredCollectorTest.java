@@ -0,0 +1,69 @@
+package org.djtmk.chunkcollect.data;
+
+import org.bukkit.World;
+import org.djtmk.chunkcollect.TestServer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StoredCollectorTest {
+    private static final Logger LOGGER = Logger.getLogger("StoredCollectorTest");
+
+    @BeforeAll
+    static void installServer() {
+        TestServer.install();
+    }
+
+    @Test
+    void storedRowBecomesCollector() {
+        World world = TestServer.createWorld("world");
+        UUID owner = UUID.randomUUID();
+        StoredCollector stored = new StoredCollector("collector", owner.toString(), "world", 1, 64, 2,
+                1, 2, 3, "DENY", List.of(), List.of());
+
+        CollectorData collector = stored.toCollector(world, LOGGER);
+        assertEquals(owner, collector.getOwner());
+        assertEquals(1, collector.getBlockX());
+        assertEquals(3, collector.getMaxLinkedChests());
+        assertEquals(MaterialFilter.Mode.DENY, collector.getFilter().getMode());
+    }
+
+    @Test
+    void unknownFilterEntriesAreKept() {
+        World world = TestServer.createWorld("world");
+        StoredCollector stored = new StoredCollector("collector", UUID.randomUUID().toString(), "world", 0, 64, 0,
+                0, 0, 1, "ALLOW", List.of("NOT_A_MATERIAL", "#not_a_tag"), List.of());
+
+        CollectorData collector = stored.toCollector(world, LOGGER);
+        assertEquals(List.of("NOT_A_MATERIAL", "#not_a_tag"), collector.getFilter().getEntries());
+    }
+
+    @Test
+    void badOwnerIsRejected() {
+        World world = TestServer.createWorld("world");
+        StoredCollector stored = new StoredCollector("collector", "not-a-uuid", "world", 0, 64, 0,
+                0, 0, 1, "ALLOW", List.of(), List.of());
+
+        assertThrows(IllegalArgumentException.class, () -> stored.toCollector(world, LOGGER));
+    }
+
+    @Test
+    void chestsInOtherWorldsAreDropped() {
+        World world = TestServer.createWorld("world");
+        List<StoredCollector.ChestPosition> chests = List.of(
+                new StoredCollector.ChestPosition("world", 2, 64, 0),
+                new StoredCollector.ChestPosition("world_nether", 2, 64, 0));
+        StoredCollector stored = new StoredCollector("collector", UUID.randomUUID().toString(), "world", 0, 64, 0,
+                0, 0, 2, "ALLOW", List.of(), chests);
+
+        CollectorData collector = stored.toCollector(world, LOGGER);
+        assertEquals(1, collector.getLinkedChestCount());
+        assertEquals(2, collector.getLinkedChests().get(0).getBlockX());
+    }
+}
@@ -0,0 +1,32 @@
+package org.djtmk.chunkcollect.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DatabaseManagerTest {
+
+    @Test
+    void idsCompareLikeTheirUtf8Bytes() {
+        List<String> ids = List.of("", "a", "ab", "b", "B", "0f3c", "\u00e9", "\uff21", "\ud83d\ude00", "a\ud83d\ude00");
+        for (String first : ids) {
+            for (String second : ids) {
+                int expected = Integer.signum(Arrays.compareUnsigned(
+                        first.getBytes(StandardCharsets.UTF_8), second.getBytes(StandardCharsets.UTF_8)));
+                assertEquals(expected, Integer.signum(DatabaseManager.compareIds(first, second)), first + " / " + second);
+            }
+        }
+    }
+
+    @Test
+    void supplementaryCharactersSortAfterBasicPlane() {
+        // UTF-16 puts the surrogate pair first, the databases do not
+        assertTrue("\ud83d\ude00".compareTo("\uff21") < 0);
+        assertTrue(DatabaseManager.compareIds("\ud83d\ude00", "\uff21") > 0);
+    }
+}
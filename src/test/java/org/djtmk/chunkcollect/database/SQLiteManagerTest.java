@@ -0,0 +1,120 @@
+package org.djtmk.chunkcollect.database;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.djtmk.chunkcollect.ChunkCollect;
+import org.djtmk.chunkcollect.TestServer;
+import org.djtmk.chunkcollect.data.CollectorData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SQLiteManagerTest {
+    private static final String COLLECTOR_ID = "collector";
+
+    @TempDir
+    File dataFolder;
+
+    private SQLiteManager database;
+    private World world;
+    private CollectorData collector;
+
+    @BeforeAll
+    static void installServer() {
+        TestServer.install();
+    }
+
+    @BeforeEach
+    void setUp() {
+        ChunkCollect plugin = mock(ChunkCollect.class);
+        when(plugin.getDataFolder()).thenReturn(dataFolder);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("SQLiteManagerTest"));
+        database = new SQLiteManager(plugin);
+        assertTrue(database.initialize());
+
+        world = TestServer.createWorld("world");
+        collector = new CollectorData(COLLECTOR_ID, UUID.randomUUID(), new Location(world, 0, 64, 0));
+        collector.setLinkedChests(List.of(new Location(world, 2, 64, 0)));
+        assertTrue(database.saveChanges(Map.of(COLLECTOR_ID, collector)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    void savingKeepsChestsLinkedInOtherWorlds() throws SQLException {
+        // A link made by an older version, before chests had to be in the collector's world
+        execute("INSERT INTO linked_chests (collector_id, world, x, y, z) VALUES ('" + COLLECTOR_ID + "', 'world_nether', 5, 64, 5)");
+
+        collector.setLinkedChests(List.of(new Location(world, 3, 64, 0)));
+        assertTrue(database.saveChanges(Map.of(COLLECTOR_ID, collector)));
+        assertEquals(1, countChests("world"));
+        assertEquals(1, countChests("world_nether"));
+
+        assertTrue(database.saveCollectors(Map.of(COLLECTOR_ID, collector)));
+        assertEquals(1, countChests("world"));
+        assertEquals(1, countChests("world_nether"));
+    }
+
+    @Test
+    void removingCollectorRemovesAllItsChests() throws SQLException {
+        execute("INSERT INTO linked_chests (collector_id, world, x, y, z) VALUES ('" + COLLECTOR_ID + "', 'world_nether', 5, 64, 5)");
+
+        assertTrue(database.saveChanges(Collections.singletonMap(COLLECTOR_ID, null)));
+        assertEquals(0, countChests("world"));
+        assertEquals(0, countChests("world_nether"));
+    }
+
+    @Test
+    void fullSaveRemovesChestsOfCollectorsThatAreGone() throws SQLException {
+        execute("INSERT INTO linked_chests (collector_id, world, x, y, z) VALUES ('" + COLLECTOR_ID + "', 'world_nether', 5, 64, 5)");
+
+        assertTrue(database.saveCollectors(Collections.emptyMap()));
+        assertEquals(0, countChests("world"));
+        assertEquals(0, countChests("world_nether"));
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + new File(dataFolder, "collectors.db").getAbsolutePath());
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private int countChests(String worldName) throws SQLException {
+        try (Connection connection = connect();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT COUNT(*) FROM linked_chests WHERE collector_id = ? AND world = ?")) {
+            statement.setString(1, COLLECTOR_ID);
+            statement.setString(2, worldName);
+            ResultSet resultSet = statement.executeQuery();
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.djtmk.chunkcollect.manager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkCollectorMapTest {
+    // The map starts with 16 slots and only grows past 8 chunks
+    private static final int INITIAL_MASK = 15;
+
+    @Test
+    void addedCollectorsAreFoundAfterResizing() {
+        ChunkCollectorMap map = new ChunkCollectorMap();
+        for (long key = 0; key < 100; key++) {
+            map.add(key, "collector-" + key);
+        }
+        assertEquals(100, map.size());
+
+        for (long key = 0; key < 100; key++) {
+            assertEquals(List.of("collector-" + key), map.get(key));
+        }
+        Set<String> all = new HashSet<>();
+        map.collectAll(all);
+        assertEquals(100, all.size());
+
+        for (long key = 0; key < 100; key += 2) {
+            assertTrue(map.remove(key, "collector-" + key));
+        }
+        assertEquals(50, map.size());
+        for (long key = 0; key < 100; key++) {
+            assertEquals(key % 2 == 0 ? List.of() : List.of("collector-" + key), map.get(key));
+        }
+    }
+
+    @Test
+    void removingMissingCollectorChangesNothing() {
+        ChunkCollectorMap map = new ChunkCollectorMap();
+        map.add(1L, "a");
+
+        assertFalse(map.remove(2L, "a"));
+        assertFalse(map.remove(1L, "b"));
+        assertEquals(List.of("a"), map.get(1L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void probeRunWrapsAroundTheTable() {
+        ChunkCollectorMap map = new ChunkCollectorMap();
+        // Homed in the last slot, so the run continues at slot 0
+        List<Long> keys = keysWithHome(INITIAL_MASK, 3);
+        long homedAtZero = keysWithHome(0, 1).get(0);
+        for (long key : keys) {
+            map.add(key, "collector-" + key);
+        }
+        map.add(homedAtZero, "zero");
+
+        for (long key : keys) {
+            assertEquals(List.of("collector-" + key), map.get(key));
+        }
+        assertEquals(List.of("zero"), map.get(homedAtZero));
+
+        // Emptying the last slot has to pull entries back across the end of the table
+        assertTrue(map.remove(keys.get(0), "collector-" + keys.get(0)));
+        assertEquals(List.of(), map.get(keys.get(0)));
+        assertEquals(List.of("collector-" + keys.get(1)), map.get(keys.get(1)));
+        assertEquals(List.of("collector-" + keys.get(2)), map.get(keys.get(2)));
+        assertEquals(List.of("zero"), map.get(homedAtZero));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    void removingFromMiddleOfCollisionChainKeepsLaterKeys() {
+        ChunkCollectorMap map = new ChunkCollectorMap();
+        List<Long> chain = keysWithHome(3, 4);
+        // Pushed out of its home slot by the chain, so it sits after it
+        long displaced = keysWithHome(4, 1).get(0);
+        // Sits in its home slot right after the run, so it must stay put
+        long settled = keysWithHome(8, 1).get(0);
+        for (long key : chain) {
+            map.add(key, "collector-" + key);
+        }
+        map.add(displaced, "displaced");
+        map.add(settled, "settled");
+
+        assertTrue(map.remove(chain.get(1), "collector-" + chain.get(1)));
+
+        assertEquals(List.of(), map.get(chain.get(1)));
+        assertEquals(List.of("collector-" + chain.get(0)), map.get(chain.get(0)));
+        assertEquals(List.of("collector-" + chain.get(2)), map.get(chain.get(2)));
+        assertEquals(List.of("collector-" + chain.get(3)), map.get(chain.get(3)));
+        assertEquals(List.of("displaced"), map.get(displaced));
+        assertEquals(List.of("settled"), map.get(settled));
+        assertEquals(5, map.size());
+
+        // The freed slot is reused without duplicating keys that moved
+        map.add(chain.get(1), "again");
+        assertEquals(List.of("again"), map.get(chain.get(1)));
+        assertEquals(6, map.size());
+    }
+
+    @Test
+    void countFollowsCollectorsInChunk() {
+        ChunkCollectorMap map = new ChunkCollectorMap();
+        assertEquals(0, map.count(7L));
+
+        map.add(7L, "a");
+        map.add(7L, "b");
+        map.add(7L, "c");
+        // Adding a collector twice doesn't count it twice
+        map.add(7L, "b");
+        assertEquals(3, map.count(7L));
+        assertEquals(List.of("a", "b", "c"), map.get(7L));
+        assertEquals(1, map.size());
+
+        assertTrue(map.remove(7L, "b"));
+        assertEquals(2, map.count(7L));
+        assertEquals(List.of("a", "c"), map.get(7L));
+
+        assertTrue(map.remove(7L, "a"));
+        assertTrue(map.remove(7L, "c"));
+        assertEquals(0, map.count(7L));
+        assertEquals(0, map.size());
+    }
+
+    /**
+     * Finds chunk keys whose home slot in a new map is the given slot.
+     *
+     * @param slot The home slot
+     * @param count The number of keys to find
+     * @return The keys
+     */
+    private static List<Long> keysWithHome(int slot, int count) {
+        List<Long> keys = new ArrayList<>(count);
+        for (long key = 0; keys.size() < count; key++) {
+            if ((ChunkCollectorMap.hash(key) & INITIAL_MASK) == slot) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+}
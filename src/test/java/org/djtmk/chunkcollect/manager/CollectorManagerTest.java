@@ -0,0 +1,131 @@
+package org.djtmk.chunkcollect.manager;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.Chest;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.djtmk.chunkcollect.ChunkCollect;
+import org.djtmk.chunkcollect.TestServer;
+import org.djtmk.chunkcollect.config.Config;
+import org.djtmk.chunkcollect.data.CollectorData;
+import org.djtmk.chunkcollect.database.SQLiteManager;
+import org.djtmk.chunkcollect.task.PlatformScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CollectorManagerTest {
+    private static final String COLLECTOR_ID = "collector";
+
+    @TempDir
+    File dataFolder;
+
+    private World world;
+    private CollectorManager manager;
+
+    @BeforeAll
+    static void installServer() {
+        TestServer.install();
+    }
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        world = TestServer.createWorld("world");
+        ChunkCollect plugin = mock(ChunkCollect.class);
+        Server server = mock(Server.class);
+        PlatformScheduler scheduler = mock(PlatformScheduler.class);
+        when(plugin.isEnabled()).thenReturn(true);
+        when(plugin.getName()).thenReturn("ChunkCollect");
+        when(plugin.getDataFolder()).thenReturn(dataFolder);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("CollectorManagerTest"));
+        when(plugin.getServer()).thenReturn(server);
+        when(plugin.getPlatformScheduler()).thenReturn(scheduler);
+        when(server.getWorld("world")).thenReturn(world);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(scheduler).runGlobal(any(Runnable.class));
+
+        // The left half of a double chest at 2, 64, 0 is linked
+        SQLiteManager database = new SQLiteManager(plugin);
+        assertTrue(database.initialize());
+        CollectorData stored = new CollectorData(COLLECTOR_ID, UUID.randomUUID(), new Location(world, 0, 64, 0));
+        stored.setMaxLinkedChests(1);
+        stored.setLinkedChests(List.of(new Location(world, 2, 64, 0)));
+        assertTrue(database.saveChanges(Map.of(COLLECTOR_ID, stored)));
+        database.close();
+
+        Config config = mock(Config.class);
+        when(config.getDatabaseType()).thenReturn("SQLITE");
+        manager = new CollectorManager(plugin, config);
+        for (int i = 0; i < 500 && !manager.isReady(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(manager.isReady());
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.closeDatabase();
+    }
+
+    @Test
+    void destroyingLinkedHalfMovesLinkToOtherHalf() {
+        Block linked = mockChest(2, org.bukkit.block.data.type.Chest.Type.LEFT);
+        Block partner = mockChest(3, org.bukkit.block.data.type.Chest.Type.RIGHT);
+        when(linked.getRelative(any(BlockFace.class))).thenReturn(partner);
+        PersistentDataContainer partnerData = ((Chest) partner.getState()).getPersistentDataContainer();
+
+        assertEquals(1, manager.unlinkDestroyedChests(List.of(linked)));
+
+        CollectorData collector = manager.getCollector(COLLECTOR_ID);
+        assertEquals(1, collector.getLinkedChestCount());
+        assertEquals(3, collector.getLinkedChests().get(0).getBlockX());
+        assertEquals(COLLECTOR_ID, manager.getLinkedCollectorId(partner));
+        verify(partnerData).set(any(NamespacedKey.class), eq(PersistentDataType.STRING), eq(COLLECTOR_ID));
+    }
+
+    private Block mockChest(int x, org.bukkit.block.data.type.Chest.Type type) {
+        org.bukkit.block.data.type.Chest data = mock(org.bukkit.block.data.type.Chest.class);
+        when(data.getFacing()).thenReturn(BlockFace.NORTH);
+        when(data.getType()).thenReturn(type);
+
+        Chest state = mock(Chest.class);
+        PersistentDataContainer blockData = mock(PersistentDataContainer.class);
+        when(state.getPersistentDataContainer()).thenReturn(blockData);
+
+        Block block = mock(Block.class);
+        when(block.getWorld()).thenReturn(world);
+        when(block.getX()).thenReturn(x);
+        when(block.getY()).thenReturn(64);
+        when(block.getZ()).thenReturn(0);
+        when(block.getLocation()).thenReturn(new Location(world, x, 64, 0));
+        when(block.getType()).thenReturn(Material.CHEST);
+        when(block.getBlockData()).thenReturn(data);
+        when(block.getState()).thenReturn(state);
+        return block;
+    }
+}
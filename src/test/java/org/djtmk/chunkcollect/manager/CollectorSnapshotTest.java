@@ -0,0 +1,51 @@
+package org.djtmk.chunkcollect.manager;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.djtmk.chunkcollect.TestServer;
+import org.djtmk.chunkcollect.data.CollectorData;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CollectorSnapshotTest {
+
+    @BeforeAll
+    static void installServer() {
+        TestServer.install();
+    }
+
+    @Test
+    void snapshotSharesCollectorsWithRegistry() {
+        World world = TestServer.createWorld("world");
+        CollectorData collector = new CollectorData("collector", UUID.randomUUID(), new Location(world, 0, 64, 0));
+        CollectorSnapshot snapshot = new CollectorSnapshot(List.of(collector));
+
+        // Settings changed after the snapshot was taken are visible through it
+        UUID owner = UUID.randomUUID();
+        collector.setOwner(owner);
+        assertSame(collector, snapshot.get("collector"));
+        assertEquals(owner, snapshot.get("collector").getOwner());
+        assertNull(snapshot.get("missing"));
+    }
+
+    @Test
+    void snapshotIgnoresLaterRegistryChanges() {
+        World world = TestServer.createWorld("world");
+        List<CollectorData> registry = new ArrayList<>();
+        registry.add(new CollectorData("first", UUID.randomUUID(), new Location(world, 0, 64, 0)));
+        CollectorSnapshot snapshot = new CollectorSnapshot(registry);
+
+        registry.add(new CollectorData("second", UUID.randomUUID(), new Location(world, 16, 64, 0)));
+        assertEquals(1, snapshot.size());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getCollectors().remove("first"));
+    }
+}
@@ -0,0 +1,109 @@
+package org.djtmk.chunkcollect.manager;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.Container;
+import org.bukkit.inventory.Inventory;
+import org.djtmk.chunkcollect.TestServer;
+import org.djtmk.chunkcollect.config.Config;
+import org.djtmk.chunkcollect.data.CollectorData;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ContainerCacheTest {
+    private static final String COLLECTOR_ID = "collector";
+
+    private World world;
+    private Inventory inventory;
+    private CollectorData collector;
+    private ContainerCache cache;
+
+    @BeforeAll
+    static void installServer() {
+        TestServer.install();
+    }
+
+    @BeforeEach
+    void setUp() {
+        world = TestServer.createWorld("world");
+
+        // A collector at 0,64,0 with one linked chest two blocks away
+        Block chest = mock(Block.class);
+        Container state = mock(Container.class);
+        inventory = mock(Inventory.class);
+        when(world.getBlockAt(2, 64, 0)).thenReturn(chest);
+        when(chest.getX()).thenReturn(2);
+        when(chest.getZ()).thenReturn(0);
+        when(chest.getType()).thenReturn(Material.CHEST);
+        when(chest.getBlockKey()).thenReturn(Block.getBlockKey(2, 64, 0));
+        when(chest.getState(false)).thenReturn(state);
+        when(state.getInventory()).thenReturn(inventory);
+        when(inventory.getLocation()).thenReturn(new Location(world, 2, 64, 0));
+
+        collector = new CollectorData(COLLECTOR_ID, UUID.randomUUID(), new Location(world, 0, 64, 0));
+        collector.setLinkedChests(List.of(new Location(world, 2, 64, 0)));
+
+        cache = new ContainerCache(mock(Config.class), new ContainerIndex());
+    }
+
+    @Test
+    void restartWithFullBufferRetriesAfterFirstResolve() {
+        // After a restart the buffer is reloaded full but nothing is cached, so no container can signal space
+        assertFalse(cache.consumeSpaceSignal(COLLECTOR_ID));
+
+        // The first run with pending items resolves the containers, which lets it retry them
+        assertEquals(List.of(inventory), cache.getContainers(COLLECTOR_ID, collector));
+        assertTrue(cache.consumeSpaceSignal(COLLECTOR_ID));
+
+        // While the entry stays valid, later runs wait for a real signal
+        cache.getContainers(COLLECTOR_ID, collector);
+        assertFalse(cache.consumeSpaceSignal(COLLECTOR_ID));
+    }
+
+    @Test
+    void chunkUnloadWakesCollectorAndResolvesAgain() {
+        cache.getContainers(COLLECTOR_ID, collector);
+        cache.consumeSpaceSignal(COLLECTOR_ID);
+
+        cache.invalidateChunk(world, 0, 0);
+        assertTrue(cache.takeWakeups().contains(COLLECTOR_ID));
+        assertTrue(cache.getCapacities(COLLECTOR_ID).isEmpty());
+
+        // The dropped entry is resolved on the next run, which signals space again
+        cache.getContainers(COLLECTOR_ID, collector);
+        assertTrue(cache.consumeSpaceSignal(COLLECTOR_ID));
+    }
+
+    @Test
+    void spaceInWatchedContainerSignalsCollector() {
+        cache.getContainers(COLLECTOR_ID, collector);
+        cache.consumeSpaceSignal(COLLECTOR_ID);
+
+        cache.signalSpace(inventory);
+        assertTrue(cache.takeWakeups().contains(COLLECTOR_ID));
+        assertTrue(cache.consumeSpaceSignal(COLLECTOR_ID));
+    }
+
+    @Test
+    void invalidatedEntryResolvesAgainAndSignalsSpace() {
+        cache.getContainers(COLLECTOR_ID, collector);
+        cache.consumeSpaceSignal(COLLECTOR_ID);
+
+        // What a collector at its longest backoff does, so space that appeared without an event is found
+        cache.invalidate(COLLECTOR_ID);
+        cache.getContainers(COLLECTOR_ID, collector);
+        assertTrue(cache.consumeSpaceSignal(COLLECTOR_ID));
+    }
+}
@@ -0,0 +1,170 @@
+package org.djtmk.chunkcollect.manager;
+
+import org.djtmk.chunkcollect.ChunkCollect;
+import org.djtmk.chunkcollect.database.DatabaseManager;
+import org.djtmk.chunkcollect.task.PlatformScheduler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PendingStoreTest {
+    private static final String COLLECTOR_ID = "collector";
+
+    private DatabaseManager database;
+    private PendingStore store;
+
+    @BeforeEach
+    void setUp() {
+        ChunkCollect plugin = mock(ChunkCollect.class);
+        PlatformScheduler scheduler = mock(PlatformScheduler.class);
+        when(plugin.isEnabled()).thenReturn(true);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("PendingStoreTest"));
+        when(plugin.getPlatformScheduler()).thenReturn(scheduler);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(scheduler).runGlobal(any(Runnable.class));
+
+        database = mock(DatabaseManager.class);
+        store = new PendingStore(plugin, database, new DirectExecutor());
+    }
+
+    @Test
+    void failedWriteIsRetried() {
+        store.load(COLLECTOR_ID);
+        store.get(COLLECTOR_ID);
+        store.markDirty(COLLECTOR_ID);
+
+        when(database.savePendingItems(anyMap())).thenReturn(false);
+        store.flush();
+        assertEquals(1, store.getDirtyCount());
+
+        when(database.savePendingItems(anyMap())).thenReturn(true);
+        store.flush();
+        assertEquals(0, store.getDirtyCount());
+        verify(database, times(2)).savePendingItems(eq(Collections.singletonMap(COLLECTOR_ID, null)));
+    }
+
+    @Test
+    void failedDeletionIsRetried() {
+        store.load(COLLECTOR_ID);
+
+        when(database.savePendingItems(anyMap())).thenReturn(false);
+        store.remove(COLLECTOR_ID, entries -> { });
+
+        when(database.savePendingItems(anyMap())).thenReturn(true);
+        store.flush();
+        store.flush();
+        verify(database, times(2)).savePendingItems(eq(Collections.singletonMap(COLLECTOR_ID, null)));
+    }
+
+    @Test
+    void failedReadIsNeverWrittenAndIsRetried() throws SQLException {
+        when(database.loadPendingItems(anyString())).thenThrow(new SQLException("Connection reset"));
+        store.load(COLLECTOR_ID);
+        store.get(COLLECTOR_ID);
+        store.markDirty(COLLECTOR_ID);
+
+        // Writing now would replace the stored items with the new ones alone
+        store.flush();
+        verify(database, never()).savePendingItems(anyMap());
+        assertEquals(1, store.getDirtyCount());
+
+        // The next flush reads the stored buffer again and writes the merged buffer, once
+        doReturn(null).when(database).loadPendingItems(anyString());
+        when(database.savePendingItems(anyMap())).thenReturn(true);
+        store.flush();
+        store.flush();
+        verify(database).savePendingItems(eq(Collections.singletonMap(COLLECTOR_ID, null)));
+        assertEquals(0, store.getDirtyCount());
+    }
+
+    @Test
+    void unreadableBufferIsNeverOverwritten() throws SQLException {
+        when(database.loadPendingItems(anyString())).thenReturn(new byte[] {99});
+        when(database.savePendingItems(anyMap())).thenReturn(true);
+        store.load(COLLECTOR_ID);
+        store.get(COLLECTOR_ID);
+        store.markDirty(COLLECTOR_ID);
+
+        store.flush();
+        store.flush();
+        verify(database, times(1)).loadPendingItems(COLLECTOR_ID);
+        verify(database, never()).savePendingItems(anyMap());
+    }
+
+    @Test
+    void removingUnmergedCollectorReadsStoredItemsBeforeDeleting() throws SQLException {
+        when(database.loadPendingItems(anyString())).thenReturn(new byte[] {1, 0, 0, 0, 0});
+        when(database.savePendingItems(anyMap())).thenReturn(true);
+
+        store.remove(COLLECTOR_ID, entries -> { });
+        verify(database).loadPendingItems(COLLECTOR_ID);
+        verify(database).savePendingItems(eq(Collections.singletonMap(COLLECTOR_ID, null)));
+    }
+
+    @Test
+    void removingCollectorKeepsStoredItemsThatCannotBeRead() throws SQLException {
+        when(database.loadPendingItems(anyString())).thenThrow(new SQLException("Connection reset"));
+
+        store.remove(COLLECTOR_ID, entries -> { });
+        verify(database, never()).savePendingItems(anyMap());
+    }
+
+    /**
+     * Runs database work on the calling thread, so tests see its effects at once.
+     */
+    private static final class DirectExecutor extends AbstractExecutorService {
+        private boolean shutdown;
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
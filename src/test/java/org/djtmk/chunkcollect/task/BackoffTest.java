@@ -0,0 +1,38 @@
+package org.djtmk.chunkcollect.task;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BackoffTest {
+
+    @Test
+    void levelsGrowUpToMaximum() {
+        Backoff backoff = new Backoff(3);
+
+        assertEquals(1, backoff.block("collector"));
+        assertEquals(2, backoff.block("collector"));
+        assertEquals(3, backoff.block("collector"));
+        assertEquals(3, backoff.block("collector"));
+        assertTrue(backoff.isMaxLevel(3));
+        assertFalse(backoff.isMaxLevel(2));
+    }
+
+    @Test
+    void clearEndsBackoff() {
+        Backoff backoff = new Backoff(3);
+        backoff.block("collector");
+
+        assertEquals(1, backoff.size());
+        assertTrue(backoff.isBlocked("collector"));
+        assertTrue(backoff.clear("collector"));
+        assertFalse(backoff.isBlocked("collector"));
+        assertFalse(backoff.clear("collector"));
+        assertEquals(0, backoff.size());
+
+        // A collector blocked again starts over
+        assertEquals(1, backoff.block("collector"));
+    }
+}
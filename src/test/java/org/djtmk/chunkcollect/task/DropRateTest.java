@@ -0,0 +1,36 @@
+package org.djtmk.chunkcollect.task;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DropRateTest {
+
+    @Test
+    void slicesCountTowardsFinishedRun() {
+        DropRate sliced = new DropRate();
+        sliced.record(0, 0, 1.0);
+        sliced.recordSlice(30);
+        sliced.recordSlice(30);
+        sliced.record(40, 100, 1.0);
+
+        DropRate whole = new DropRate();
+        whole.record(0, 0, 1.0);
+        whole.record(100, 100, 1.0);
+
+        assertEquals(whole.getInterval(1, 1000, 50), sliced.getInterval(1, 1000, 50));
+        assertEquals(50, sliced.getInterval(1, 1000, 50));
+    }
+
+    @Test
+    void slicesAreCountedOnce() {
+        DropRate dropRate = new DropRate();
+        dropRate.record(0, 0, 1.0);
+        dropRate.recordSlice(100);
+        dropRate.record(0, 100, 1.0);
+        dropRate.record(0, 200, 1.0);
+
+        // The second run picked up nothing, so the rate drops to zero
+        assertEquals(1000, dropRate.getInterval(1, 1000, 50));
+    }
+}